@@ -0,0 +1,95 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.util.Arrays;
+import org.eclipse.jgit.lib.AnyObjectId;
+
+/**
+ * Finds commits whose ids share the first 12 hex digits, as used in {@code changelist}.
+ * Those 48 bits are kept as primitive {@code long}s and sorted, so that duplicates end up adjacent;
+ * this takes eight bytes per commit and allocates nothing per commit.
+ */
+final class AbbreviationIndex {
+
+    private long[] prefixes = new long[1024];
+    private int size;
+    private boolean sorted;
+
+    /**
+     * @return the first six bytes of the id, as an unsigned number
+     */
+    static long prefix(AnyObjectId id) {
+        long prefix = 0;
+        for (int i = 0; i < 6; i++) {
+            prefix = (prefix << 8) | id.getByte(i);
+        }
+        return prefix;
+    }
+
+    void add(long prefix) {
+        if (size == prefixes.length) {
+            prefixes = Arrays.copyOf(prefixes, size * 2);
+        }
+        prefixes[size++] = prefix;
+        sorted = false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the distinct prefixes added more than once, sorted
+     */
+    long[] duplicates() {
+        sort();
+        long[] duplicates = new long[0];
+        for (int i = 1; i < size; i++) {
+            if (prefixes[i] == prefixes[i - 1] && (duplicates.length == 0 || duplicates[duplicates.length - 1] != prefixes[i])) {
+                duplicates = Arrays.copyOf(duplicates, duplicates.length + 1);
+                duplicates[duplicates.length - 1] = prefixes[i];
+            }
+        }
+        return duplicates;
+    }
+
+    /**
+     * @return all prefixes added, sorted
+     */
+    long[] sorted() {
+        sort();
+        return Arrays.copyOf(prefixes, size);
+    }
+
+    private void sort() {
+        if (!sorted) {
+            Arrays.sort(prefixes, 0, size);
+            sorted = true;
+        }
+    }
+
+}
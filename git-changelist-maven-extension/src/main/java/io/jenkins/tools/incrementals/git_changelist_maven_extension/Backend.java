@@ -0,0 +1,57 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.IOException;
+import java.util.Set;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Way of answering the basic questions about a checkout needed for {@code changelist}.
+ * Every implementation must give identical answers.
+ */
+interface Backend {
+
+    /**
+     * @param all whether to collect every dirty path, rather than stopping at the first one found
+     * @return paths which {@code git status} would report
+     */
+    Set<String> dirty(boolean all) throws IOException;
+
+    ObjectId head() throws IOException;
+
+    /**
+     * @return the committer time in seconds since the epoch
+     */
+    long commitTime(ObjectId commit) throws IOException;
+
+    /**
+     * @param history the history of the same commit, which an implementation may use if it is already based on JGit
+     * @return the number of commits reachable from the commit, including itself
+     */
+    int count(ObjectId commit, History history) throws IOException;
+
+}
@@ -0,0 +1,303 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import com.googlecode.javaewah.EWAHCompressedBitmap;
+import com.googlecode.javaewah.IntIterator;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.eclipse.jgit.lib.BitmapIndex;
+import org.eclipse.jgit.lib.BitmapObject;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * Computes {@code git rev-list --count} using the reachability bitmaps written by {@code git repack -b}.
+ * The count for a bitmapped commit is the cardinality of its bitmap intersected with the pack's commit type bitmap;
+ * only commits newer than that need to be walked.
+ */
+final class BitmapCounter implements AutoCloseable {
+
+    /** How far back from the tip to look for a bitmapped commit before giving up. */
+    private static final int MAX_DISTANCE = 1000;
+
+    private static final int BITMAP_MAGIC = 0x4249544d; // BITM
+    private static final int BITMAP_HEADER = 4 + 2 + 2 + 4 + Constants.OBJECT_ID_LENGTH;
+    private static final int RIDX_MAGIC = 0x52494458; // RIDX
+    private static final int RIDX_HEADER = 12;
+    private static final int IDX_V2_MAGIC = 0xff744f63;
+    private static final int IDX_NAMES = 8 + 256 * 4;
+
+    private final File packDir;
+    private final RevWalk walk;
+    private RevCommit base;
+    private BitmapIndex.Bitmap bitmap;
+    private final List<ObjectId> newer = new ArrayList<>();
+    /** commits in the bitmap of {@link #base}, by position in the pack */
+    private EWAHCompressedBitmap bitmappedCommits;
+    /** ids of objects by position in the pack, or null if the pack has no reverse index */
+    private PackOrder order;
+    private int count;
+
+    BitmapCounter(Repository repo) {
+        packDir = new File(new File(repo.getCommonDirectory(), "objects"), "pack");
+        walk = new RevWalk(repo);
+        walk.setRetainBody(false);
+    }
+
+    /**
+     * Looks for a bitmap covering the tip or a recent ancestor, and counts commits using it.
+     * @return false if there is no such bitmap
+     */
+    boolean load(ObjectId tip) throws IOException {
+        BitmapIndex index = walk.getObjectReader().getBitmapIndex();
+        if (index == null) {
+            return false;
+        }
+        File bitmapFile = bitmapFile();
+        if (bitmapFile == null) {
+            return false;
+        }
+        RevCommit tipC = walk.parseCommit(tip);
+        walk.markStart(tipC);
+        int distance = 0;
+        for (RevCommit c : walk) {
+            bitmap = index.getBitmap(c);
+            if (bitmap != null) {
+                base = c;
+                break;
+            }
+            if (++distance > MAX_DISTANCE) {
+                return false;
+            }
+        }
+        if (base == null) {
+            return false;
+        }
+        walk.reset();
+        walk.markStart(tipC);
+        walk.markUninteresting(base);
+        for (RevCommit c : walk) {
+            newer.add(c);
+        }
+        bitmappedCommits = commitType(bitmapFile).and(bitmap.retrieveCompressed());
+        count = newer.size() + bitmappedCommits.cardinality();
+        order = PackOrder.open(bitmapFile);
+        return true;
+    }
+
+    /**
+     * @return the bitmap of the only pack which has one, or null if it is not clear which bitmap JGit loaded,
+     *         as when there are several or a multi-pack bitmap
+     */
+    private File bitmapFile() {
+        File[] bitmaps = packDir.listFiles((dir, name) -> name.endsWith(".bitmap"));
+        if (bitmaps == null || bitmaps.length != 1 || !bitmaps[0].getName().startsWith("pack-")) {
+            return null;
+        }
+        return bitmaps[0];
+    }
+
+    /**
+     * Reads the commit type bitmap, which comes first after the header of a version 1 bitmap file,
+     * checking its length against that of the file first so that a corrupt one is reported as an {@link IOException}.
+     */
+    private static EWAHCompressedBitmap commitType(File bitmapFile) throws IOException {
+        long length = bitmapFile.length();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(bitmapFile.toPath())))) {
+            if (length < BITMAP_HEADER + 8 || in.readInt() != BITMAP_MAGIC || in.readUnsignedShort() != 1) {
+                throw new IOException("Unsupported bitmap file " + bitmapFile);
+            }
+            in.skipNBytes(BITMAP_HEADER - 6);
+            in.mark(8);
+            in.readInt(); // size in bits
+            int words = in.readInt();
+            if (words < 0 || BITMAP_HEADER + 8 + (long) words * 8 + 4 > length) {
+                throw new IOException("Truncated bitmap file " + bitmapFile);
+            }
+            in.reset();
+            EWAHCompressedBitmap commits = new EWAHCompressedBitmap();
+            commits.deserialize(in);
+            return commits;
+        }
+    }
+
+    /**
+     * @return the number of commits reachable from the tip, after a successful {@link #load}
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * @return the commit whose bitmap was used
+     */
+    ObjectId base() {
+        return base;
+    }
+
+    /**
+     * @return all commits reachable from the tip, after a successful {@link #load};
+     *         bitmapped commits are looked up by position if the pack has a reverse index,
+     *         else by going through every object in the bitmap
+     */
+    Iterable<ObjectId> commits() {
+        if (order == null) {
+            return () -> new Iterator<ObjectId>() {
+                final Iterator<ObjectId> walked = newer.iterator();
+                final Iterator<BitmapObject> bitmapped = bitmap.iterator();
+                ObjectId next;
+                @Override public boolean hasNext() {
+                    if (next != null) {
+                        return true;
+                    }
+                    if (walked.hasNext()) {
+                        next = walked.next();
+                        return true;
+                    }
+                    while (bitmapped.hasNext()) {
+                        BitmapObject o = bitmapped.next();
+                        if (o.getType() == Constants.OBJ_COMMIT) {
+                            next = o.getObjectId();
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                @Override public ObjectId next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    ObjectId r = next;
+                    next = null;
+                    return r;
+                }
+            };
+        }
+        return () -> new Iterator<ObjectId>() {
+            final Iterator<ObjectId> walked = newer.iterator();
+            final IntIterator positions = bitmappedCommits.intIterator();
+            @Override public boolean hasNext() {
+                return walked.hasNext() || positions.hasNext();
+            }
+            @Override public ObjectId next() {
+                if (walked.hasNext()) {
+                    return walked.next();
+                }
+                if (!positions.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return order.id(positions.next());
+            }
+        };
+    }
+
+    @Override public void close() {
+        walk.close();
+    }
+
+    /**
+     * Finds objects by their position in a pack, which is what bitmaps are indexed by,
+     * using the reverse index ({@code .rev}) to get their position in the pack index ({@code .idx}).
+     */
+    private static final class PackOrder {
+
+        final File rev;
+        final ByteBuffer revData;
+        final ByteBuffer idxData;
+        final int size;
+
+        private PackOrder(File rev, ByteBuffer revData, ByteBuffer idxData, int size) {
+            this.rev = rev;
+            this.revData = revData;
+            this.idxData = idxData;
+            this.size = size;
+        }
+
+        /**
+         * @return null if the pack has no reverse index
+         */
+        static PackOrder open(File bitmapFile) throws IOException {
+            String name = bitmapFile.getName();
+            String stem = name.substring(0, name.length() - ".bitmap".length());
+            File rev = new File(bitmapFile.getParentFile(), stem + ".rev");
+            File idx = new File(bitmapFile.getParentFile(), stem + ".idx");
+            if (!rev.isFile()) {
+                return null;
+            }
+            ByteBuffer idxData = map(idx);
+            if (idxData.limit() < IDX_NAMES || idxData.getInt(0) != IDX_V2_MAGIC || idxData.getInt(4) != 2) {
+                throw new IOException("Unsupported pack index " + idx);
+            }
+            int size = idxData.getInt(IDX_NAMES - 4);
+            if (size < 0 || IDX_NAMES + (long) size * Constants.OBJECT_ID_LENGTH > idxData.limit()) {
+                throw new IOException("Truncated pack index " + idx);
+            }
+            ByteBuffer revData = map(rev);
+            // header, one index position per object, then two checksums
+            if (revData.limit() != RIDX_HEADER + (long) size * 4 + 2 * Constants.OBJECT_ID_LENGTH
+                    || revData.getInt(0) != RIDX_MAGIC || revData.getInt(4) != 1 || revData.getInt(8) != 1) {
+                throw new IOException("Corrupt reverse index " + rev);
+            }
+            return new PackOrder(rev, revData, idxData, size);
+        }
+
+        private static ByteBuffer map(File file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Too large to map: " + file);
+                }
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+
+        ObjectId id(int position) {
+            int at = position < size ? revData.getInt(RIDX_HEADER + position * 4) : -1;
+            if (at < 0 || at >= size) {
+                throw new UncheckedIOException(new IOException("Corrupt reverse index " + rev));
+            }
+            byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+            idxData.get(IDX_NAMES + at * Constants.OBJECT_ID_LENGTH, raw);
+            return ObjectId.fromRaw(raw);
+        }
+
+    }
+
+}
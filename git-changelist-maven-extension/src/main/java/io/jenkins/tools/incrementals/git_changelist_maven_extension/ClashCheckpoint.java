@@ -0,0 +1,188 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * Remembers the abbreviations of all commits reachable from some commit already checked for clashes,
+ * so that the next build need only check newer commits against them.
+ * Stored under {@code .git/git-changelist-maven-extension/clash-checkpoint}:
+ * a magic number and format version, the checkpoint commit id, the number of prefixes,
+ * then each prefix in six bytes in ascending order, all followed by a CRC-32 of the preceding bytes.
+ * Prefixes of an already tolerated clash appear more than once.
+ */
+final class ClashCheckpoint {
+
+    private static final int MAGIC = 0x434c4350; // CLCP
+    private static final int VERSION = 1;
+    private static final int HEADER = 12 + Constants.OBJECT_ID_LENGTH;
+    /** How many new commits to scan before giving up and checking all history. */
+    private static final int MAX_DISTANCE = 10000;
+
+    private final ObjectId commit;
+    private final long[] prefixes;
+
+    private ClashCheckpoint(ObjectId commit, long[] prefixes) {
+        this.commit = commit;
+        this.prefixes = prefixes;
+    }
+
+    private static File location(Repository repo) {
+        return RevCountCache.location(repo, "clash-checkpoint");
+    }
+
+    /**
+     * @return the checkpoint, or null if none has been written
+     * @throws IOException if it is unreadable or corrupt
+     */
+    static ClashCheckpoint read(Repository repo) throws IOException {
+        File file = location(repo);
+        if (!file.isFile()) {
+            return null;
+        }
+        byte[] data = RevCountCache.readChecked(file, HEADER + 4);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unrecognized format of " + file);
+            }
+            byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+            in.readFully(raw);
+            int n = in.readInt();
+            if (n < 0 || data.length != HEADER + 4 + n * 6L) {
+                throw new IOException("Truncated " + file);
+            }
+            long[] prefixes = new long[n];
+            for (int i = 0; i < n; i++) {
+                prefixes[i] = ((long) in.readUnsignedShort() << 32) | (in.readInt() & 0xFFFFFFFFL);
+                if (i > 0 && prefixes[i] < prefixes[i - 1]) {
+                    throw new IOException("Unsorted " + file);
+                }
+            }
+            return new ClashCheckpoint(ObjectId.fromRaw(raw), prefixes);
+        }
+    }
+
+    /**
+     * Records that all commits reachable from a given commit were checked.
+     * @param prefixes the sorted abbreviations of all those commits
+     */
+    static void save(Repository repo, ObjectId commit, long[] prefixes) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(HEADER + prefixes.length * 6);
+        try (DataOutputStream out = new DataOutputStream(buf)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+            commit.copyRawTo(raw, 0);
+            out.write(raw);
+            out.writeInt(prefixes.length);
+            for (long prefix : prefixes) {
+                out.writeShort((int) (prefix >>> 32));
+                out.writeInt((int) prefix);
+            }
+        }
+        RevCountCache.writeChecked(location(repo), buf);
+    }
+
+    /**
+     * @return the number of commits reachable from the checkpoint
+     */
+    int size() {
+        return prefixes.length;
+    }
+
+    /**
+     * Finds commits reachable from HEAD but not from the checkpoint.
+     * @return their sorted abbreviations, or null if there are too many to bother
+     */
+    long[] scan(Repository repo, ObjectId head) throws IOException {
+        AbbreviationIndex index = new AbbreviationIndex();
+        try (RevWalk walk = new RevWalk(repo)) {
+            walk.setRetainBody(false);
+            walk.markStart(walk.parseCommit(head));
+            RevCommit base;
+            try {
+                base = walk.parseCommit(commit);
+            } catch (IOException x) {
+                return null; // perhaps pruned after a history rewrite
+            }
+            walk.markUninteresting(base);
+            for (RevCommit c : walk) {
+                if (index.size() == MAX_DISTANCE) {
+                    return null;
+                }
+                index.add(AbbreviationIndex.prefix(c));
+            }
+        }
+        return index.sorted();
+    }
+
+    /**
+     * Even if the checkpoint is not an ancestor of HEAD, every commit reachable from HEAD is either newer or remembered,
+     * so a clash must involve some newer commit.
+     * @param newer as returned by {@link #scan}
+     * @return true if a newer commit shares an abbreviation with another commit
+     */
+    boolean mayClash(long[] newer) {
+        for (int i = 0; i < newer.length; i++) {
+            if (i > 0 && newer[i] == newer[i - 1] || Arrays.binarySearch(prefixes, newer[i]) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param newer as returned by {@link #scan}
+     * @return all abbreviations, sorted
+     */
+    long[] merge(long[] newer) {
+        long[] merged = new long[prefixes.length + newer.length];
+        int i = 0, j = 0, k = 0;
+        while (i < prefixes.length && j < newer.length) {
+            merged[k++] = prefixes[i] <= newer[j] ? prefixes[i++] : newer[j++];
+        }
+        while (i < prefixes.length) {
+            merged[k++] = prefixes[i++];
+        }
+        while (j < newer.length) {
+            merged[k++] = newer[j++];
+        }
+        return merged;
+    }
+
+}
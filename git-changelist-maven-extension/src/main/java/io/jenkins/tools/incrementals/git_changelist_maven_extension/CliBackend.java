@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Answers by running the {@code git} command, which can be much faster than JGit on large repositories,
+ * for example when it uses an fsmonitor.
+ */
+final class CliBackend implements Backend {
+
+    private static Boolean available;
+
+    private final File dir;
+
+    CliBackend(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * @return true if {@code git} is on the {@code PATH} and runs
+     */
+    static synchronized boolean available() {
+        if (available == null) {
+            try {
+                new CliBackend(new File(".")).run(true, "--version");
+                available = true;
+            } catch (IOException x) {
+                available = false;
+            }
+        }
+        return available;
+    }
+
+    @Override
+    public Set<String> dirty(boolean all) throws IOException {
+        // -z output is: XY path NUL, with no second path since renames are off.
+        String output = run(all, "status", "--porcelain", "-z", "--untracked-files=all", "--no-renames");
+        Set<String> paths = new TreeSet<>();
+        for (String entry : output.split("\0")) {
+            if (entry.length() > 3) {
+                paths.add(entry.substring(3));
+            }
+        }
+        return paths;
+    }
+
+    @Override
+    public ObjectId head() throws IOException {
+        return ObjectId.fromString(run(true, "rev-parse", "--verify", "HEAD").trim());
+    }
+
+    @Override
+    public long commitTime(ObjectId commit) throws IOException {
+        return Long.parseLong(run(true, "show", "-s", "--format=%ct", commit.name()).trim());
+    }
+
+    @Override
+    public int count(ObjectId commit, History history) throws IOException {
+        return Integer.parseInt(run(true, "rev-list", "--count", commit.name()).trim());
+    }
+
+    /**
+     * @param all if false, stop reading after the first NUL-terminated record and kill the process
+     * @return the standard output
+     */
+    private String run(boolean all, String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(List.of(args));
+        ProcessBuilder pb = new ProcessBuilder(command).directory(dir).redirectError(ProcessBuilder.Redirect.DISCARD);
+        pb.environment().put("GIT_OPTIONAL_LOCKS", "0"); // do not refresh the index behind the back of a concurrent build
+        pb.environment().put("LC_ALL", "C");
+        Process p = pb.start();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = p.getInputStream()) {
+            int b;
+            while ((b = in.read()) != -1) {
+                out.write(b);
+                if (b == 0 && !all) {
+                    p.destroy();
+                    return out.toString(StandardCharsets.UTF_8);
+                }
+            }
+        }
+        try {
+            if (!p.waitFor(1, TimeUnit.MINUTES)) {
+                p.destroyForcibly();
+                throw new IOException("Timed out running " + command);
+            }
+        } catch (InterruptedException x) {
+            p.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException(x);
+        }
+        if (p.exitValue() != 0) {
+            throw new IOException(command + " failed with exit code " + p.exitValue());
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,342 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Read-only view of the commit-graph written by {@code git commit-graph write}, {@code git gc} or {@code git maintenance}.
+ * Supports both a single {@code objects/info/commit-graph} file and a split chain
+ * under {@code objects/info/commit-graphs/}.
+ * Positions are global across the chain, base layer first, as in the files themselves.
+ * @see <a href="https://git-scm.com/docs/gitformat-commit-graph">commit-graph format</a>
+ */
+final class CommitGraph {
+
+    private static final int SIGNATURE = 0x43475048; // CGPH
+    private static final int CHUNK_OIDF = 0x4f494446;
+    private static final int CHUNK_OIDL = 0x4f49444c;
+    private static final int CHUNK_CDAT = 0x43444154;
+    private static final int CHUNK_EDGE = 0x45444745;
+    private static final int HASH_LENGTH = 20;
+    private static final int CDAT_WIDTH = HASH_LENGTH + 16;
+    private static final int PARENT_NONE = 0x70000000;
+    private static final int PARENT_EXTRA = 0x80000000;
+    private static final int GENERATION_MAX = 0x3FFFFFFF;
+
+    private final Layer[] layers;
+    private final int size;
+
+    private CommitGraph(Layer[] layers) {
+        this.layers = layers;
+        size = layers.length == 0 ? 0 : layers[layers.length - 1].base + layers[layers.length - 1].count;
+    }
+
+    /**
+     * Loads whatever commit-graph is present, preferring a single file over a chain as Git does.
+     * @param objects the {@code .git/objects} directory
+     * @return null if there is no commit-graph
+     * @throws IOException if a commit-graph is present but unreadable, unsupported or corrupt
+     */
+    static CommitGraph open(File objects) throws IOException {
+        File single = new File(objects, "info/commit-graph");
+        if (single.isFile()) {
+            return new CommitGraph(new Layer[] {new Layer(single, 0, 0)});
+        }
+        File dir = new File(objects, "info/commit-graphs");
+        File chain = new File(dir, "commit-graph-chain");
+        if (!chain.isFile()) {
+            return null;
+        }
+        List<Layer> layers = new ArrayList<>();
+        int base = 0;
+        for (String line : Files.readAllLines(chain.toPath(), StandardCharsets.US_ASCII)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            Layer layer = new Layer(new File(dir, "graph-" + line.trim() + ".graph"), layers.size(), base);
+            layers.add(layer);
+            base += layer.count;
+        }
+        return new CommitGraph(layers.toArray(new Layer[0]));
+    }
+
+    /**
+     * @return the total number of commits in all layers
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the global position of a commit, or -1 if it is not in the graph
+     */
+    int find(AnyObjectId id) {
+        byte[] raw = new byte[HASH_LENGTH];
+        id.copyRawTo(raw, 0);
+        for (Layer layer : layers) {
+            int local = layer.find(raw);
+            if (local >= 0) {
+                return layer.base + local;
+            }
+        }
+        return -1;
+    }
+
+    ObjectId id(int pos) {
+        Layer layer = layer(pos);
+        byte[] raw = new byte[HASH_LENGTH];
+        layer.data.get(layer.oidl + (pos - layer.base) * HASH_LENGTH, raw);
+        return ObjectId.fromRaw(raw);
+    }
+
+    /**
+     * @return the first six bytes of the commit’s id
+     * @see AbbreviationIndex#prefix
+     */
+    long prefix(int pos) {
+        Layer layer = layer(pos);
+        return layer.data.getLong(layer.oidl + (pos - layer.base) * HASH_LENGTH) >>> 16;
+    }
+
+    /**
+     * Appends the global positions of the parents of a commit.
+     * @return the number of parents
+     */
+    int parents(int pos, IntList into) throws IOException {
+        Layer layer = layer(pos);
+        int cdat = layer.cdat + (pos - layer.base) * CDAT_WIDTH + HASH_LENGTH;
+        int p1 = layer.data.getInt(cdat);
+        if (p1 == PARENT_NONE) {
+            return 0;
+        }
+        into.add(layer.checkParent(p1));
+        int p2 = layer.data.getInt(cdat + 4);
+        if (p2 == PARENT_NONE) {
+            return 1;
+        }
+        if ((p2 & PARENT_EXTRA) == 0) {
+            into.add(layer.checkParent(p2));
+            return 2;
+        }
+        if (layer.edge < 0) {
+            throw new IOException("Missing EDGE chunk in " + layer.file);
+        }
+        int n = 1;
+        long edge = (p2 & ~PARENT_EXTRA) * 4L;
+        int p;
+        do {
+            if (edge + 4 > layer.edgeLength) {
+                throw new IOException("Extra edge out of range in " + layer.file);
+            }
+            p = layer.data.getInt(layer.edge + (int) edge);
+            into.add(layer.checkParent(p & ~PARENT_EXTRA));
+            n++;
+            edge += 4;
+        } while ((p & PARENT_EXTRA) == 0);
+        return n;
+    }
+
+    /**
+     * @return the topological level: 1 for a root, otherwise one more than the maximum of its parents;
+     *         0 if it was not computed, or {@link #GENERATION_MAX} if it overflowed
+     */
+    int generation(int pos) {
+        Layer layer = layer(pos);
+        return layer.data.getInt(layer.cdat + (pos - layer.base) * CDAT_WIDTH + HASH_LENGTH + 8) >>> 2;
+    }
+
+    /**
+     * @return true if {@link #generation} may be used to order commits
+     */
+    static boolean usableGeneration(int generation) {
+        return generation > 0 && generation < GENERATION_MAX;
+    }
+
+    private Layer layer(int pos) {
+        for (int i = layers.length - 1; i > 0; i--) {
+            if (pos >= layers[i].base) {
+                return layers[i];
+            }
+        }
+        return layers[0];
+    }
+
+    /**
+     * One {@code .graph} file.
+     * Everything the accessors read is checked against the length of the file when it is opened,
+     * or else as it is read, so that corruption is reported as an {@link IOException}.
+     */
+    private static final class Layer {
+
+        final File file;
+        final int base;
+        final ByteBuffer data;
+        final int count;
+        /** offset of the fanout table */
+        final int oidf;
+        /** offset of the sorted object ids */
+        final int oidl;
+        /** offset of the commit data */
+        final int cdat;
+        /** offset of the extra edge list, or -1 */
+        final int edge;
+        final long edgeLength;
+
+        Layer(File file, int index, int base) throws IOException {
+            this.file = file;
+            this.base = base;
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Commit-graph too large to map: " + file);
+                }
+                data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (data.limit() < 8 || data.getInt(0) != SIGNATURE) {
+                throw new IOException("Not a commit-graph: " + file);
+            }
+            if (data.get(4) != 1 || data.get(5) != 1) {
+                throw new IOException("Unsupported commit-graph version or hash in " + file);
+            }
+            int chunks = data.get(6) & 0xFF;
+            if ((data.get(7) & 0xFF) != index) {
+                throw new IOException("Expected " + index + " base graphs for " + file);
+            }
+            // The table of contents ends with an entry whose offset is where the last chunk ends.
+            int tableEnd = 8 + (chunks + 1) * 12;
+            if (tableEnd > data.limit()) {
+                throw new IOException("Truncated commit-graph " + file);
+            }
+            int oidf = -1, oidl = -1, cdat = -1, edge = -1;
+            long oidfLength = 0, oidlLength = 0, cdatLength = 0, edgeLength = 0;
+            for (int i = 0; i < chunks; i++) {
+                int entry = 8 + i * 12;
+                int id = data.getInt(entry);
+                long offset = data.getLong(entry + 4);
+                long next = data.getLong(entry + 16);
+                if (offset < tableEnd || next < offset || next > data.limit()) {
+                    throw new IOException("Chunk offset out of range in " + file);
+                }
+                switch (id) {
+                case CHUNK_OIDF:
+                    oidf = (int) offset;
+                    oidfLength = next - offset;
+                    break;
+                case CHUNK_OIDL:
+                    oidl = (int) offset;
+                    oidlLength = next - offset;
+                    break;
+                case CHUNK_CDAT:
+                    cdat = (int) offset;
+                    cdatLength = next - offset;
+                    break;
+                case CHUNK_EDGE:
+                    edge = (int) offset;
+                    edgeLength = next - offset;
+                    break;
+                default:
+                    // generation data, Bloom filters, base graph list: not needed here
+                }
+            }
+            if (oidf < 0 || oidl < 0 || cdat < 0) {
+                throw new IOException("Missing required chunks in " + file);
+            }
+            if (oidfLength < 256 * 4) {
+                throw new IOException("Truncated fanout in " + file);
+            }
+            int previous = 0;
+            for (int i = 0; i < 256; i++) {
+                int entry = data.getInt(oidf + i * 4);
+                if (entry < previous) {
+                    throw new IOException("Corrupt fanout in " + file);
+                }
+                previous = entry;
+            }
+            count = previous;
+            if ((long) count * HASH_LENGTH > oidlLength || (long) count * CDAT_WIDTH > cdatLength) {
+                throw new IOException("Truncated commit-graph " + file);
+            }
+            this.oidf = oidf;
+            this.oidl = oidl;
+            this.cdat = cdat;
+            this.edge = edge;
+            this.edgeLength = edgeLength;
+        }
+
+        /**
+         * Parents are in this layer or those below it.
+         * @return the global position of a parent, once checked to be in range
+         */
+        int checkParent(int pos) throws IOException {
+            if (pos < 0 || pos >= base + count) {
+                throw new IOException("Parent position out of range in " + file);
+            }
+            return pos;
+        }
+
+        /**
+         * @return the local position, or -1
+         */
+        int find(byte[] raw) {
+            int first = raw[0] & 0xFF;
+            int lo = first == 0 ? 0 : data.getInt(oidf + (first - 1) * 4);
+            int hi = data.getInt(oidf + first * 4);
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int cmp = compare(raw, oidl + mid * HASH_LENGTH);
+                if (cmp == 0) {
+                    return mid;
+                } else if (cmp < 0) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            return -1;
+        }
+
+        private int compare(byte[] raw, int offset) {
+            for (int i = 0; i < HASH_LENGTH; i++) {
+                int cmp = Integer.compare(raw[i] & 0xFF, data.get(offset + i) & 0xFF);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return 0;
+        }
+
+    }
+
+}
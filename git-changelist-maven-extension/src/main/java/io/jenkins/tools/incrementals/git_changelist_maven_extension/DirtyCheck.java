@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.CoreConfig;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.WorkingTreeIterator;
+import org.eclipse.jgit.treewalk.WorkingTreeOptions;
+
+/**
+ * Finds paths which {@code git status} would report, more cheaply than {@link org.eclipse.jgit.api.StatusCommand}.
+ * Index entries whose stat data matches the file are trusted without reading it;
+ * ignored untracked directories are not entered;
+ * and the files which do need to be read are hashed in parallel once everything else has been compared.
+ */
+final class DirtyCheck {
+
+    private static final int HEAD = 0;
+    private static final int INDEX = 1;
+    private static final int WORK = 2;
+
+    private final Repository repo;
+    private final boolean all;
+    private final Set<String> dirty = new TreeSet<>();
+    /** files whose stat data is inconclusive */
+    private final List<Racy> racy = new ArrayList<>();
+
+    private DirtyCheck(Repository repo, boolean all) {
+        this.repo = repo;
+        this.all = all;
+    }
+
+    /**
+     * @param all whether to collect every dirty path, rather than stopping at the first one found
+     * @return paths of uncommitted or untracked files, empty if the working tree is clean
+     */
+    static Set<String> find(Repository repo, boolean all) throws IOException {
+        DirtyCheck check = new DirtyCheck(repo, all);
+        check.run();
+        return check.dirty;
+    }
+
+    private void run() throws IOException {
+        DirCache index = repo.readDirCache();
+        // Without any filters the blob is just the file, so it can be hashed independently of JGit.
+        boolean plain = repo.getConfig().get(WorkingTreeOptions.KEY).getAutoCRLF() == CoreConfig.AutoCRLF.FALSE
+            && repo.getConfig().getString("core", null, "attributesFile") == null
+            && !new File(repo.getDirectory(), "info/attributes").isFile();
+        for (int i = 0; plain && i < index.getEntryCount(); i++) {
+            String path = index.getEntry(i).getPathString();
+            if (path.equals(Constants.DOT_GIT_ATTRIBUTES) || path.endsWith("/" + Constants.DOT_GIT_ATTRIBUTES)) {
+                plain = false;
+            }
+        }
+        try (ObjectReader reader = repo.newObjectReader(); TreeWalk walk = new TreeWalk(repo, reader)) {
+            ObjectId headTree = repo.resolve("HEAD^{tree}");
+            if (headTree != null) {
+                walk.addTree(headTree);
+            } else {
+                walk.addTree(new EmptyTreeIterator());
+            }
+            walk.addTree(new DirCacheIterator(index));
+            FileTreeIterator work = new FileTreeIterator(repo);
+            walk.addTree(work);
+            work.setDirCacheIterator(walk, INDEX);
+            while (walk.next()) {
+                if (walk.isSubtree()) {
+                    WorkingTreeIterator w = walk.getTree(WORK, WorkingTreeIterator.class);
+                    if (walk.getRawMode(HEAD) == 0 && walk.getRawMode(INDEX) == 0 && w.isEntryIgnored()) {
+                        continue;
+                    }
+                    walk.enterSubtree();
+                } else if (compare(walk, reader, plain) && !all) {
+                    return;
+                }
+            }
+        }
+        Stream<Racy> modified = racy.parallelStream().filter(Racy::modified);
+        try {
+            if (all) {
+                dirty.addAll(modified.map(r -> r.path).collect(Collectors.toList()));
+            } else {
+                modified.findAny().ifPresent(r -> dirty.add(r.path));
+            }
+        } catch (UncheckedIOException x) {
+            throw x.getCause();
+        }
+    }
+
+    /**
+     * @return true if the current file was found to be dirty
+     */
+    private boolean compare(TreeWalk walk, ObjectReader reader, boolean plain) throws IOException {
+        String path = walk.getPathString();
+        DirCacheIterator i = walk.getTree(INDEX, DirCacheIterator.class);
+        WorkingTreeIterator w = walk.getTree(WORK, WorkingTreeIterator.class);
+        if (i == null) {
+            if (walk.getRawMode(HEAD) != 0 || !w.isEntryIgnored()) {
+                // deleted from the index, or untracked
+                return dirty.add(path);
+            }
+            return false;
+        }
+        DirCacheEntry entry = i.getDirCacheEntry();
+        if (entry.getStage() != DirCacheEntry.STAGE_0 || walk.getRawMode(HEAD) != walk.getRawMode(INDEX) || !walk.idEqual(HEAD, INDEX)) {
+            // conflicted or staged
+            return dirty.add(path);
+        }
+        if (entry.isSkipWorkTree()) {
+            return false;
+        }
+        if (w == null) {
+            return dirty.add(path);
+        }
+        FileMode mode = entry.getFileMode();
+        if (!plain || (mode != FileMode.REGULAR_FILE && mode != FileMode.EXECUTABLE_FILE)) {
+            return w.isModified(entry, true, reader) && dirty.add(path);
+        }
+        switch (w.compareMetadata(entry)) {
+        case EQUAL:
+            return false;
+        case DIFFER_BY_METADATA:
+            return dirty.add(path);
+        default:
+            racy.add(new Racy(path, new File(repo.getWorkTree(), path), entry.getObjectId()));
+            return false;
+        }
+    }
+
+    /** A file which might or might not match its index entry. */
+    private static final class Racy {
+
+        final String path;
+        final File file;
+        final ObjectId id;
+
+        Racy(String path, File file, ObjectId id) {
+            this.path = path;
+            this.file = file;
+            this.id = id;
+        }
+
+        boolean modified() {
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                return !new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB, Files.size(file.toPath()), in).equals(id);
+            } catch (NoSuchFileException | EOFException x) {
+                return true; // changing under us
+            } catch (IOException x) {
+                throw new UncheckedIOException(x);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Passes computed properties on to later Maven invocations on the same checkout, as in a multistage pipeline.
+ * Stored as {@code .git/git-changelist-maven-extension/handoff.properties}
+ * along with everything the values were derived from, so that a file left by a different HEAD or configuration is ignored.
+ */
+final class Handoff {
+
+    /** Properties passed on. */
+    static final String[] VALUES = {"changelist", "scmTag", "project.build.outputTimestamp", "gitHubRepo"};
+    private static final String KEY_PREFIX = "key.";
+
+    private final File file;
+    private final Properties key = new Properties();
+
+    /**
+     * @param props user properties, of which those affecting the values become part of the key
+     * @param env environment variables, likewise
+     */
+    Handoff(Repository repo, ObjectId head, Properties props, Map<String, String> env) {
+        file = RevCountCache.location(repo, "handoff.properties");
+        key.setProperty("head", head.name());
+        key.setProperty("changelist.format", props.getProperty("changelist.format", ""));
+        key.setProperty("CHANGE_FORK", env.getOrDefault("CHANGE_FORK", ""));
+        key.setProperty("JOB_NAME", env.getOrDefault("JOB_NAME", ""));
+        // git fetch --unshallow changes the count without moving HEAD
+        key.setProperty("shallow", History.shallowState(repo));
+    }
+
+    /**
+     * @return values written by an earlier invocation with the same key, or null;
+     *         {@code gitHubRepo} is absent if none could be determined
+     */
+    Properties read() {
+        if (!file.isFile()) {
+            return null;
+        }
+        Properties stored = new Properties();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            stored.load(in);
+        } catch (IOException | IllegalArgumentException x) {
+            return null;
+        }
+        for (String k : key.stringPropertyNames()) {
+            if (!key.getProperty(k).equals(stored.getProperty(KEY_PREFIX + k))) {
+                return null;
+            }
+        }
+        Properties values = new Properties();
+        for (String v : VALUES) {
+            String value = stored.getProperty(v);
+            if (value != null) {
+                values.setProperty(v, value);
+            }
+        }
+        if (!values.containsKey("changelist") || !values.containsKey("scmTag") || !values.containsKey("project.build.outputTimestamp")) {
+            return null;
+        }
+        return values;
+    }
+
+    /**
+     * Writes the file atomically.
+     * @param props properties including those in {@link #VALUES}
+     */
+    void write(Properties props) throws IOException {
+        Properties stored = new Properties();
+        for (String k : key.stringPropertyNames()) {
+            stored.setProperty(KEY_PREFIX + k, key.getProperty(k));
+        }
+        for (String v : VALUES) {
+            String value = props.getProperty(v);
+            if (value != null) {
+                stored.setProperty(v, value);
+            }
+        }
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        stored.store(buf, "written by git-changelist-maven-extension");
+        Files.createDirectories(file.getParentFile().toPath());
+        Path tmp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+        try {
+            Files.write(tmp, buf.toByteArray());
+            Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return file.toString();
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.LongConsumer;
+import org.codehaus.plexus.logging.Logger;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * The history of HEAD, loaded lazily in the cheapest available way and shared by the steps of one calculation.
+ */
+final class History implements AutoCloseable {
+
+    private final Repository repo;
+    private final ObjectId head;
+    private final Logger log;
+    private BitmapCounter bitmaps;
+    private boolean bitmapsLoaded;
+    private RevCounter counter;
+
+    History(Repository repo, ObjectId head, Logger log) {
+        this.repo = repo;
+        this.head = head;
+        this.log = log;
+    }
+
+    /**
+     * Shallow clones have fake roots, so counts differ from those of a full clone,
+     * and Git itself disables the commit-graph in them.
+     */
+    static boolean isShallow(Repository repo) {
+        return new File(repo.getCommonDirectory(), "shallow").isFile();
+    }
+
+    /**
+     * @return a description of the shallow boundary which changes whenever it does, as on {@code git fetch --unshallow};
+     *         empty if the repository is not shallow
+     */
+    static String shallowState(Repository repo) {
+        File shallow = new File(repo.getCommonDirectory(), "shallow");
+        return shallow.isFile() ? shallow.lastModified() + ":" + shallow.length() : "";
+    }
+
+    /**
+     * @return the number of commits reachable from HEAD
+     */
+    int count() throws IOException {
+        BitmapCounter b = bitmaps();
+        return b != null ? b.count() : counter().count(0);
+    }
+
+    /**
+     * @return all commits reachable from HEAD, in no particular order
+     */
+    Iterable<ObjectId> commits() throws IOException {
+        BitmapCounter b = bitmaps();
+        return b != null ? b.commits() : counter().commits();
+    }
+
+    /**
+     * Passes the abbreviated id of every commit reachable from HEAD.
+     * @see AbbreviationIndex#prefix
+     */
+    void forEachPrefix(LongConsumer action) throws IOException {
+        BitmapCounter b = bitmaps();
+        if (b != null) {
+            for (ObjectId c : b.commits()) {
+                action.accept(AbbreviationIndex.prefix(c));
+            }
+        } else {
+            counter().forEachPrefix(action);
+        }
+    }
+
+    /**
+     * @return a bitmap-based view if a reachability bitmap covers HEAD or a recent ancestor, else null;
+     *         always null in a shallow clone, where bitmaps would count commits beyond the shallow boundary
+     */
+    private BitmapCounter bitmaps() throws IOException {
+        if (!bitmapsLoaded) {
+            bitmapsLoaded = true;
+            if (isShallow(repo)) {
+                log.debug("Not using reachability bitmaps in a shallow clone");
+                return null;
+            }
+            BitmapCounter b = new BitmapCounter(repo);
+            if (b.load(head)) {
+                log.debug("Using the reachability bitmap of " + b.base().name());
+                bitmaps = b;
+            } else {
+                b.close();
+            }
+        }
+        return bitmaps;
+    }
+
+    /**
+     * @return the full history of HEAD, from the commit-graph if there is a usable one
+     */
+    RevCounter counter() throws IOException {
+        if (counter == null) {
+            CommitGraph graph = null;
+            if (isShallow(repo)) {
+                log.debug("Not using commit-graph in a shallow clone");
+            } else {
+                try {
+                    graph = CommitGraph.open(new File(repo.getCommonDirectory(), "objects"));
+                } catch (IOException x) {
+                    log.warn("Ignoring unreadable commit-graph: " + x);
+                }
+            }
+            if (graph != null) {
+                RevCounter c = new RevCounter(repo, graph);
+                try {
+                    c.load(head);
+                    log.debug("Loaded history from commit-graph of " + graph.size() + " commits");
+                    counter = c;
+                } catch (IOException x) {
+                    c.close();
+                    log.warn("Falling back to parsing all commits: " + x);
+                }
+            }
+            if (counter == null) {
+                RevCounter c = new RevCounter(repo, null);
+                try {
+                    c.load(head);
+                } catch (IOException x) {
+                    c.close();
+                    throw x;
+                }
+                counter = c;
+            }
+        }
+        return counter;
+    }
+
+    @Override public void close() {
+        if (bitmaps != null) {
+            bitmaps.close();
+        }
+        if (counter != null) {
+            counter.close();
+        }
+    }
+
+}
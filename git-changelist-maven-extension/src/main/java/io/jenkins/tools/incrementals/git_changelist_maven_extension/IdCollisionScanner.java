@@ -0,0 +1,245 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Finds all objects in a repository whose ids share their first 12 hex digits with some other object,
+ * without walking any history.
+ * Pack indexes are already sorted by id, so merging them (and the few loose objects) brings any such objects together.
+ * Callers must still check which of the objects are commits reachable from HEAD.
+ */
+final class IdCollisionScanner {
+
+    private static final int IDX_V2_MAGIC = 0xff744f63;
+    private static final int FANOUT_SIZE = 256 * 4;
+    private static final int ID_LENGTH = Constants.OBJECT_ID_LENGTH;
+
+    private IdCollisionScanner() {}
+
+    /**
+     * @param objects the {@code .git/objects} directory
+     * @return distinct ids sharing an abbreviation with at least one other id, in sorted order
+     * @throws IOException if some pack index cannot be read
+     */
+    static List<ObjectId> scan(File objects) throws IOException {
+        List<File> dirs = new ArrayList<>();
+        dirs.add(objects);
+        File alternates = new File(objects, "info/alternates");
+        if (alternates.isFile()) {
+            for (String line : Files.readAllLines(alternates.toPath(), StandardCharsets.UTF_8)) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    File alt = new File(line.trim());
+                    dirs.add(alt.isAbsolute() ? alt : new File(objects, line.trim()));
+                }
+            }
+        }
+        PriorityQueue<Source> queue = new PriorityQueue<>(Comparator.comparingLong((Source s) -> s.prefix));
+        for (File dir : dirs) {
+            File[] idxs = new File(dir, "pack").listFiles((d, name) -> name.endsWith(".idx"));
+            if (idxs != null) {
+                for (File idx : idxs) {
+                    Source s = packIndex(idx);
+                    if (s.valid()) {
+                        queue.add(s);
+                    }
+                }
+            }
+            Source loose = loose(dir);
+            if (loose.valid()) {
+                queue.add(loose);
+            }
+        }
+        List<ObjectId> found = new ArrayList<>();
+        List<ObjectId> group = new ArrayList<>();
+        Source first = null; // source and offset of the first id with the current prefix
+        int firstOffset = 0;
+        long prefix = -1;
+        while (!queue.isEmpty()) {
+            Source s = queue.poll();
+            if (s.prefix != prefix) {
+                flush(group, found);
+                prefix = s.prefix;
+                first = s;
+                firstOffset = s.offset;
+            } else {
+                // Rare, so allocate freely. The same object may also be present in several packs.
+                if (group.isEmpty()) {
+                    group.add(first.id(firstOffset));
+                }
+                ObjectId id = s.id(s.offset);
+                if (!group.contains(id)) {
+                    group.add(id);
+                }
+            }
+            if (s.advance()) {
+                queue.add(s);
+            }
+        }
+        flush(group, found);
+        return found;
+    }
+
+    private static void flush(List<ObjectId> group, List<ObjectId> found) {
+        if (group.size() > 1) {
+            group.sort(null); // sources with the same prefix come out of the queue in no particular order
+            found.addAll(group);
+        }
+        group.clear();
+    }
+
+    /**
+     * Opens a pack index, checking its layout against its length first,
+     * so that a corrupt or half-written one is reported as an {@link IOException} rather than read out of bounds.
+     */
+    private static Source packIndex(File idx) throws IOException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(idx.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Pack index too large to map: " + idx);
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (data.limit() >= 8 && data.getInt(0) == IDX_V2_MAGIC) {
+            if (data.getInt(4) != 2) {
+                throw new IOException("Unsupported pack index version in " + idx);
+            }
+            checkLength(idx, data, 8 + FANOUT_SIZE);
+            int count = fanout(idx, data, 8);
+            // ids, CRCs and offsets (large offsets being optional), then two checksums
+            checkLength(idx, data, 8 + FANOUT_SIZE + (long) count * (ID_LENGTH + 4 + 4) + 2 * ID_LENGTH);
+            return new Source(data, 8 + FANOUT_SIZE, ID_LENGTH, count);
+        } else {
+            // version 1: fanout, then offset and id for each object, then two checksums
+            checkLength(idx, data, FANOUT_SIZE);
+            int count = fanout(idx, data, 0);
+            checkLength(idx, data, FANOUT_SIZE + (long) count * (4 + ID_LENGTH) + 2 * ID_LENGTH);
+            return new Source(data, FANOUT_SIZE + 4, 4 + ID_LENGTH, count);
+        }
+    }
+
+    /**
+     * @return the number of objects, once the fanout table has been checked to be nondecreasing
+     */
+    private static int fanout(File idx, ByteBuffer data, int start) throws IOException {
+        int previous = 0;
+        for (int i = 0; i < 256; i++) {
+            int entry = data.getInt(start + i * 4);
+            if (entry < previous) {
+                throw new IOException("Corrupt fanout table in pack index " + idx);
+            }
+            previous = entry;
+        }
+        return previous;
+    }
+
+    private static void checkLength(File idx, ByteBuffer data, long needed) throws IOException {
+        if (needed > data.limit()) {
+            throw new IOException("Truncated pack index " + idx);
+        }
+    }
+
+    private static Source loose(File objects) {
+        List<ObjectId> ids = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            String dirName = String.format("%02x", i);
+            String[] names = new File(objects, dirName).list();
+            if (names == null) {
+                continue;
+            }
+            for (String name : names) {
+                if (name.length() == 2 * ID_LENGTH - 2 && ObjectId.isId(dirName + name)) {
+                    ids.add(ObjectId.fromString(dirName + name));
+                }
+            }
+        }
+        ids.sort(null);
+        ByteBuffer data = ByteBuffer.allocate(ids.size() * ID_LENGTH);
+        byte[] raw = new byte[ID_LENGTH];
+        for (ObjectId id : ids) {
+            id.copyRawTo(raw, 0);
+            data.put(raw);
+        }
+        return new Source(data, 0, ID_LENGTH, ids.size());
+    }
+
+    /** Cursor over sorted ids laid out at a fixed stride. */
+    private static final class Source {
+
+        final ByteBuffer data;
+        final int stride;
+        final int end;
+        int offset;
+        /** first six bytes at {@link #offset} */
+        long prefix;
+
+        Source(ByteBuffer data, int start, int stride, int count) {
+            this.data = data;
+            this.stride = stride;
+            end = start + count * stride;
+            offset = start;
+            read();
+        }
+
+        boolean valid() {
+            return offset < end;
+        }
+
+        boolean advance() {
+            offset += stride;
+            return read();
+        }
+
+        private boolean read() {
+            if (offset < end) {
+                prefix = data.getLong(offset) >>> 16;
+                return true;
+            }
+            return false;
+        }
+
+        ObjectId id(int at) {
+            byte[] raw = new byte[ID_LENGTH];
+            data.get(at, raw);
+            return ObjectId.fromRaw(raw);
+        }
+
+    }
+
+}
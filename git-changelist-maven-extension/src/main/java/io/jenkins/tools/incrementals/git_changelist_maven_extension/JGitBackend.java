@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.IOException;
+import java.util.Set;
+import org.codehaus.plexus.logging.Logger;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * Answers everything in process.
+ */
+final class JGitBackend implements Backend {
+
+    private final Repository repo;
+    private final Logger log;
+
+    JGitBackend(Repository repo, Logger log) {
+        this.repo = repo;
+        this.log = log;
+    }
+
+    @Override
+    public Set<String> dirty(boolean all) throws IOException {
+        return DirtyCheck.find(repo, all);
+    }
+
+    @Override
+    public ObjectId head() throws IOException {
+        return repo.resolve("HEAD");
+    }
+
+    @Override
+    public long commitTime(ObjectId commit) throws IOException {
+        try (RevWalk walk = new RevWalk(repo)) {
+            return walk.parseCommit(commit).getCommitTime();
+        }
+    }
+
+    @Override
+    public int count(ObjectId commit, History history) throws IOException {
+        RevCountCache cache = null;
+        if (!History.isShallow(repo)) {
+            try {
+                cache = RevCountCache.read(repo);
+            } catch (IOException x) {
+                log.warn("Ignoring revcount cache: " + x);
+                cache = RevCountCache.empty(repo);
+            }
+        }
+        int count = cache != null ? cache.count(repo, commit) : -1;
+        if (count >= 0) {
+            log.debug("Counted commits since a cached ancestor");
+        } else {
+            count = history.count();
+        }
+        if (cache != null) {
+            cache.put(commit, count);
+            try {
+                cache.save();
+            } catch (IOException x) {
+                log.warn("Could not save revcount cache: " + x);
+            }
+        }
+        return count;
+    }
+
+}
@@ -26,16 +26,21 @@ package io.jenkins.tools.incrementals.git_changelist_maven_extension;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -45,9 +50,9 @@ import org.apache.maven.execution.MavenSession;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.logging.Logger;
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.Status;
-import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
@@ -65,75 +70,112 @@ import org.eclipse.jgit.revwalk.RevWalk;
 public class Main extends AbstractMavenLifecycleParticipant {
 
     private static final String IGNORE_DIRT = "ignore.dirt";
+    /** Whether to let the dirty and clash checks run in the background until projects have been read. */
+    private static final String ASYNC = "changelist.async";
+    /** How to query Git: {@code jgit} (the default), {@code cli} to run the {@code git} command, or {@code auto} to use the command if available. */
+    private static final String BACKEND = "changelist.backend";
+    /** Whether to also compute a changelist for each module from the history of its directory. */
+    private static final String MODULES = "changelist.modules";
+    /**
+     * What number to put into {@code changelist.format}:
+     * {@code count} (the default) for all commits reachable from HEAD,
+     * or {@code tag} for those since the nearest tag matching {@link #TAGS}, which is only unambiguous
+     * if {@code ${revision}} is bumped after each release.
+     */
+    private static final String SCHEME = "changelist.scheme";
+    /** Pattern for tags considered by {@link #SCHEME}{@code =tag}, such as {@code my-plugin-*}; by default all tags. */
+    private static final String TAGS = "changelist.tags";
     private static final int ABBREV_LENGTH = 12;
 
     @Inject
     private Logger log;
 
+    /** Open repositories and previous results, useful when the JVM is reused for several builds. */
+    private final WarmCache warmCache = new WarmCache();
+
+    /** Where to pass on freshly computed values once they have been verified, if anywhere. */
+    private Handoff handoff;
+
+    /** Checks started by {@link #defer}. */
+    private final List<Future<Void>> deferred = new ArrayList<>();
+
+    public Main() {}
+
+    /** For tests, which run without injection. */
+    Main(Logger log) {
+        this.log = log;
+    }
+
     @Override
     public void afterSessionStart(MavenSession session) throws MavenExecutionException {
         Properties props = session.getRequest().getUserProperties();
         if ("true".equals(props.getProperty("set.changelist"))) {
+            Properties handed = null;
             if (!props.containsKey("changelist") && !props.containsKey("scmTag")) {
                 long start = System.nanoTime();
                 File dir = session.getRequest().getMultiModuleProjectDirectory();
                 log.debug("running in " + dir);
-                String fullHash, hash, timestamp;
-                int count;
-                try (Git git = Git.open(dir)) {
-                    Status status = git.status().call();
-                    if (!status.isClean()) {
-                        // Could consider instead making this append a timestamp baased on the most recent file modification.
-                        Set<String> paths = new TreeSet<>(status.getUncommittedChanges());
-                        paths.addAll(status.getUntracked());
-                        String error = "Make sure `git status -s` is empty before using -Dset.changelist: " + paths;
-                        // Note that `git st` does not care about untracked _folders_ so long as there are no relevant _files_ inside them.
-                        if ("true".equals(props.getProperty(IGNORE_DIRT))) {
-                            log.warn(error);
-                        } else {
-                            throw new MavenExecutionException(error + " (use -D" + IGNORE_DIRT + " to make this nonfatal)", (Throwable) null);
-                        }
+                String fullHash, value, timestamp;
+                boolean async = "true".equals(props.getProperty(ASYNC));
+                deferred.clear();
+                handoff = null;
+                try {
+                    WarmCache.Entry warm = warmCache.get(dir);
+                    Repository repo = warm.repository();
+                    Backend backend = backend(props, repo);
+                    if (async) {
+                        defer("dirty check", () -> {
+                            try (Git git2 = Git.open(dir)) {
+                                checkDirt(backend(props, git2.getRepository()), props);
+                            }
+                        });
+                    } else {
+                        checkDirt(backend, props);
                     }
-                    Repository repo = git.getRepository();
-                    ObjectId head = repo.resolve("HEAD");
+                    ObjectId head = backend.head();
                     fullHash = head.name();
-                    hash = head.abbreviate(ABBREV_LENGTH).name();
-                    try (RevWalk walk = new RevWalk(repo)) {
-                        RevCommit headC = walk.parseCommit(head);
-                        timestamp = DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochSecond(headC.getCommitTime()));
-                        count = revCount(walk, headC);
-                        { // Look for repository commits reachable from HEAD that would clash.
-                            Map<String,List<RevCommit>> encountered = new HashMap<>();
-                            walk.markStart(headC);
-                            int commitCount = 0;
-                            for (RevCommit c : walk) {
-                                commitCount++;
-                                String abbreviated = c.getId().abbreviate(ABBREV_LENGTH).name();
-                                List<RevCommit> earlier = encountered.get(abbreviated);
-                                if (earlier == null) {
-                                    earlier = new ArrayList<>(1);
-                                    earlier.add(c);
-                                    encountered.put(abbreviated, earlier);
-                                } else {
-                                    int thisCount = revCount(walk, c);
-                                    for (RevCommit other : earlier) {
-                                        int otherCount = revCount(walk, other);
-                                        if (otherCount == thisCount) {
-                                            throw new MavenExecutionException(summarize(c) + " clashes with " + summarize(other) + " as they would both be identified as " + thisCount + "." + abbreviated, (Throwable) null);
-                                        } else {
-                                            log.info(summarize(c) + " would clash with " + summarize(other) + " except they have differing revcounts: " + thisCount + " vs. " + otherCount);
-                                        }
+                    String hash = head.abbreviate(ABBREV_LENGTH).name();
+                    String format = props.getProperty("changelist.format", "-rc%d.%s");
+                    Handoff h = new Handoff(repo, head, props, System.getenv());
+                    String scheme = props.getProperty(SCHEME, "count");
+                    if (scheme.equals("tag")) {
+                        timestamp = DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochSecond(backend.commitTime(head)));
+                        value = String.format(format, describe(repo, head, props.getProperty(TAGS, "*")), sanitize(hash));
+                    } else if (!scheme.equals("count")) {
+                        throw new MavenExecutionException("Unrecognized -D" + SCHEME + "=" + scheme + "; expected count or tag", (Throwable) null);
+                    } else if (warm.matches(head)) {
+                        log.debug("Reusing values computed by a previous build in this JVM");
+                        value = String.format(format, warm.count(), sanitize(hash));
+                        timestamp = warm.timestamp();
+                    } else if ((handed = h.read()) != null) {
+                        log.debug("Reusing values from " + h);
+                        value = handed.getProperty("changelist");
+                        timestamp = handed.getProperty("project.build.outputTimestamp");
+                    } else {
+                        timestamp = DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochSecond(backend.commitTime(head)));
+                        boolean shallow = History.isShallow(repo);
+                        try (History history = new History(repo, head, log)) {
+                            int count = backend.count(head, history);
+                            String committed = timestamp;
+                            if (async) {
+                                defer("clash check", () -> {
+                                    try (Git git2 = Git.open(dir); History history2 = new History(git2.getRepository(), head, log)) {
+                                        checkClashes(git2.getRepository(), head, count, shallow, history2);
                                     }
-                                }
+                                    warm.remember(head, count, committed);
+                                });
+                            } else {
+                                checkClashes(repo, head, count, shallow, history);
+                                warm.remember(head, count, committed);
                             }
-                            log.debug("Analyzed " + commitCount + " commits for clashes");
+                            value = String.format(format, count, sanitize(hash));
                         }
+                        handoff = h;
                     }
-                } catch (IOException | GitAPIException x) {
+                } catch (IOException x) {
                     throw new MavenExecutionException("Git operations failed", x);
                 }
                 log.debug("Spent " + (System.nanoTime() - start) / 1000 / 1000 + "ms on calculations");
-                String value = String.format(props.getProperty("changelist.format", "-rc%d.%s"), count, sanitize(hash));
                 log.info("Setting: -Dchangelist=" + value + " -DscmTag=" + fullHash + " -Dproject.build.outputTimestamp=" + timestamp);
                 props.setProperty("changelist", value);
                 props.setProperty("scmTag", fullHash);
@@ -144,7 +186,9 @@ public class Main extends AbstractMavenLifecycleParticipant {
             if (!props.contains("gitHubRepo")) {
                 String gitHubRepo;
                 String changeFork = System.getenv("CHANGE_FORK");
-                if (changeFork == null) {
+                if (handed != null) {
+                    gitHubRepo = handed.getProperty("gitHubRepo"); // the handoff is keyed on CHANGE_FORK and JOB_NAME
+                } else if (changeFork == null) {
                     log.info("No information available to set -DgitHubRepo");
                     gitHubRepo = null;
                 } else if (changeFork.contains("/")) {
@@ -176,6 +220,88 @@ public class Main extends AbstractMavenLifecycleParticipant {
         }
     }
 
+    /**
+     * Picks a backend according to {@link #BACKEND}.
+     */
+    private Backend backend(Properties props, Repository repo) throws MavenExecutionException {
+        String kind = props.getProperty(BACKEND, "jgit");
+        switch (kind) {
+        case "jgit":
+            return new JGitBackend(repo, log);
+        case "cli":
+            return new CliBackend(repo.getWorkTree());
+        case "auto":
+            if (CliBackend.available()) {
+                log.debug("Using git on the PATH");
+                return new CliBackend(repo.getWorkTree());
+            } else {
+                log.debug("No usable git on the PATH, so using JGit");
+                return new JGitBackend(repo, log);
+            }
+        default:
+            throw new MavenExecutionException("Unrecognized -D" + BACKEND + "=" + kind + "; expected jgit, cli or auto", (Throwable) null);
+        }
+    }
+
+    private void checkDirt(Backend backend, Properties props) throws IOException, MavenExecutionException {
+        boolean ignoreDirt = "true".equals(props.getProperty(IGNORE_DIRT));
+        // If this is going to fail anyway, the first path found will do.
+        Set<String> paths = backend.dirty(ignoreDirt);
+        if (!paths.isEmpty()) {
+            // Could consider instead making this append a timestamp baased on the most recent file modification.
+            String error = "Make sure `git status -s` is empty before using -Dset.changelist: " + paths;
+            // Note that `git st` does not care about untracked _folders_ so long as there are no relevant _files_ inside them.
+            if (ignoreDirt) {
+                log.warn(error);
+            } else {
+                throw new MavenExecutionException(error + " (use -D" + IGNORE_DIRT + " to make this nonfatal)", (Throwable) null);
+            }
+        }
+    }
+
+    private interface Check {
+        void run() throws Exception;
+    }
+
+    /**
+     * Starts a check in the background, to be joined in {@link #afterProjectsRead}.
+     */
+    private void defer(String name, Check check) {
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            check.run();
+            return null;
+        });
+        Thread thread = new Thread(task, "git-changelist-maven-extension " + name);
+        thread.setDaemon(true);
+        thread.start();
+        deferred.add(task);
+    }
+
+    private void joinDeferred() throws MavenExecutionException {
+        if (deferred.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            for (Future<Void> task : deferred) {
+                try {
+                    task.get();
+                } catch (ExecutionException x) {
+                    if (x.getCause() instanceof MavenExecutionException) {
+                        throw (MavenExecutionException) x.getCause();
+                    }
+                    throw new MavenExecutionException("Git operations failed", x.getCause());
+                }
+            }
+        } catch (InterruptedException x) {
+            Thread.currentThread().interrupt();
+            throw new MavenExecutionException("Interrupted waiting for Git operations", x);
+        } finally {
+            deferred.clear();
+        }
+        log.debug("Waited " + (System.nanoTime() - start) / 1000 / 1000 + "ms for deferred checks");
+    }
+
     static String sanitize(String hash) {
         return hash.replaceAll("[ab]", "$0_");
     }
@@ -184,20 +310,190 @@ public class Main extends AbstractMavenLifecycleParticipant {
         return c.getId().name() + " “" + c.getShortMessage() + "” " + DateTimeFormatter.ISO_LOCAL_DATE.format(Instant.ofEpochSecond(c.getCommitTime()).atZone(ZoneId.systemDefault()));
     }
 
-    private static int revCount(RevWalk walk, RevCommit c) throws IOException, GitAPIException {
-        int count = 0;
-        try (RevWalk walk2 = new RevWalk(walk.getObjectReader())) {
-            walk2.markStart(walk2.parseCommit(c));
-            for (RevCommit c2 : walk2) {
-                count++;
+    /**
+     * Finds the distance from the nearest tag, and checks for clashes only among commits since that tag,
+     * since any version based on an older tag would have a lower {@code ${revision}}.
+     * @return the distance
+     */
+    private int describe(Repository repo, ObjectId head, String tags) throws IOException, MavenExecutionException {
+        TagDistance d = TagDistance.describe(repo, head, tags);
+        if (d == null) {
+            throw new MavenExecutionException("No tag matching " + tags + " within " + TagDistance.MAX_DISTANCE + " commits of HEAD (use -D" + SCHEME + "=count instead)", (Throwable) null);
+        }
+        log.info("Counting from tag " + d.tag);
+        if (!d.clashing.isEmpty()) {
+            try (RevWalk walk = new RevWalk(repo)) {
+                List<RevCommit> commits = new ArrayList<>();
+                for (ObjectId c : d.clashing.keySet()) {
+                    commits.add(walk.parseCommit(c));
+                }
+                for (int i = 1; i < commits.size(); i++) {
+                    for (int j = 0; j < i; j++) {
+                        RevCommit c = commits.get(i);
+                        RevCommit other = commits.get(j);
+                        if (AbbreviationIndex.prefix(c) != AbbreviationIndex.prefix(other)) {
+                            continue;
+                        }
+                        int thisDistance = d.clashing.get(c);
+                        int otherDistance = d.clashing.get(other);
+                        if (thisDistance == otherDistance) {
+                            throw new MavenExecutionException(summarize(c) + " clashes with " + summarize(other) + " as they would both be identified as " + thisDistance + "." + c.getId().abbreviate(ABBREV_LENGTH).name() + " after " + d.tag, (Throwable) null);
+                        } else {
+                            log.info(summarize(c) + " would clash with " + summarize(other) + " except they have differing distances from " + d.tag + ": " + thisDistance + " vs. " + otherDistance);
+                        }
+                    }
+                }
+            }
+        }
+        return d.distance;
+    }
+
+    /**
+     * Fails if any commits reachable from HEAD would be identified the same way.
+     * If a previous build left a checkpoint, only commits since then need to be considered.
+     */
+    private void checkClashes(Repository repo, ObjectId head, int count, boolean shallow, History history) throws IOException, MavenExecutionException {
+        ClashCheckpoint checkpoint = null;
+        if (!shallow) {
+            try {
+                checkpoint = ClashCheckpoint.read(repo);
+            } catch (IOException x) {
+                log.warn("Ignoring clash checkpoint: " + x);
+            }
+        }
+        long[] newer = checkpoint != null ? checkpoint.scan(repo, head) : null;
+        if (newer != null && !checkpoint.mayClash(newer)) {
+            log.debug("Checked " + newer.length + " commits since the clash checkpoint");
+            // If the checkpoint was not an ancestor of HEAD, it remembers too much to be advanced.
+            if (newer.length > 0 && checkpoint.size() + newer.length == count) {
+                saveCheckpoint(repo, head, checkpoint.merge(newer));
+            }
+            return;
+        }
+        List<ObjectId[]> clashes = findClashes(repo, history);
+        if (!clashes.isEmpty()) {
+            checkClashes(history.counter(), clashes);
+        }
+        if (!shallow) {
+            AbbreviationIndex index = new AbbreviationIndex();
+            history.forEachPrefix(index::add);
+            saveCheckpoint(repo, head, index.sorted());
+        }
+    }
+
+    private void saveCheckpoint(Repository repo, ObjectId head, long[] prefixes) {
+        try {
+            ClashCheckpoint.save(repo, head, prefixes);
+        } catch (IOException x) {
+            log.warn("Could not save clash checkpoint: " + x);
+        }
+    }
+
+    /**
+     * Looks for commits reachable from HEAD that would share an abbreviated hash.
+     * Tries to avoid loading history by first looking for any objects at all with the same abbreviation.
+     * @return pairs of such commits
+     */
+    List<ObjectId[]> findClashes(Repository repo, History history) throws IOException {
+        List<ObjectId> candidates;
+        try {
+            candidates = IdCollisionScanner.scan(new File(repo.getCommonDirectory(), "objects"));
+        } catch (IOException x) {
+            log.debug("Falling back to scanning history for clashes: " + x);
+            return findClashes(history);
+        }
+        log.debug("Found " + candidates.size() + " objects with clashing abbreviations");
+        Map<Long,List<ObjectId>> encountered = new HashMap<>();
+        try (ObjectReader reader = repo.newObjectReader()) {
+            for (ObjectId c : candidates) {
+                if (reader.open(c).getType() == Constants.OBJ_COMMIT) {
+                    encountered.computeIfAbsent(AbbreviationIndex.prefix(c), k -> new ArrayList<>()).add(c);
+                }
+            }
+        }
+        encountered.values().removeIf(same -> same.size() < 2);
+        if (encountered.isEmpty()) {
+            return List.of();
+        }
+        // Now we do need to know which are reachable.
+        RevCounter counter = history.counter();
+        for (List<ObjectId> same : encountered.values()) {
+            same.removeIf(c -> counter.indexOf(c) < 0);
+        }
+        return pairs(encountered);
+    }
+
+    private List<ObjectId[]> findClashes(History history) throws IOException {
+        AbbreviationIndex index = new AbbreviationIndex();
+        history.forEachPrefix(index::add);
+        log.debug("Analyzed " + index.size() + " commits for clashes");
+        long[] duplicates = index.duplicates();
+        if (duplicates.length == 0) {
+            return List.of();
+        }
+        // Rare, so now go back for the full ids.
+        Map<Long,List<ObjectId>> encountered = new HashMap<>();
+        for (ObjectId c : history.commits()) {
+            long prefix = AbbreviationIndex.prefix(c);
+            if (Arrays.binarySearch(duplicates, prefix) >= 0) {
+                encountered.computeIfAbsent(prefix, k -> new ArrayList<>()).add(c);
+            }
+        }
+        return pairs(encountered);
+    }
+
+    private static List<ObjectId[]> pairs(Map<Long,List<ObjectId>> encountered) {
+        List<ObjectId[]> clashes = new ArrayList<>();
+        for (List<ObjectId> same : encountered.values()) {
+            for (int i = 1; i < same.size(); i++) {
+                for (int j = 0; j < i; j++) {
+                    clashes.add(new ObjectId[] {same.get(i), same.get(j)});
+                }
+            }
+        }
+        return clashes;
+    }
+
+    /**
+     * Fails if any pair of commits with the same abbreviated hash also has the same revcount.
+     * @param clashes pairs of commits reachable from HEAD
+     */
+    private void checkClashes(RevCounter counter, List<ObjectId[]> clashes) throws IOException, MavenExecutionException {
+        if (clashes.isEmpty()) {
+            return;
+        }
+        IntList involved = new IntList();
+        for (ObjectId[] clash : clashes) {
+            involved.add(counter.indexOf(clash[0]));
+            involved.add(counter.indexOf(clash[1]));
+        }
+        counter.count(involved.toArray()); // all in one sweep
+        for (int i = 0; i < clashes.size(); i++) {
+            RevCommit c = counter.parse(involved.get(2 * i));
+            RevCommit other = counter.parse(involved.get(2 * i + 1));
+            int thisCount = counter.count(involved.get(2 * i));
+            int otherCount = counter.count(involved.get(2 * i + 1));
+            if (otherCount == thisCount) {
+                throw new MavenExecutionException(summarize(c) + " clashes with " + summarize(other) + " as they would both be identified as " + thisCount + "." + c.getId().abbreviate(ABBREV_LENGTH).name(), (Throwable) null);
+            } else {
+                log.info(summarize(c) + " would clash with " + summarize(other) + " except they have differing revcounts: " + thisCount + " vs. " + otherCount);
             }
         }
-        return count;
     }
 
     @Override
     public void afterProjectsRead(MavenSession session) throws MavenExecutionException {
+        joinDeferred();
         Properties props = session.getRequest().getUserProperties();
+        if (handoff != null) {
+            // Only now is everything verified.
+            try {
+                handoff.write(props);
+            } catch (IOException x) {
+                log.warn("Could not write " + handoff + ": " + x);
+            }
+            handoff = null;
+        }
         if ("true".equals(props.getProperty("set.changelist"))) {
             String changelist = props.getProperty("changelist");
             for (MavenProject project : session.getProjects()) {
@@ -206,6 +502,50 @@ public class Main extends AbstractMavenLifecycleParticipant {
                     log.warn(project.getId() + " does not seem to be including ${changelist} in its <version>");
                 }
             }
+            if ("true".equals(props.getProperty(MODULES))) {
+                setModuleChangelists(session, props);
+            }
+        }
+    }
+
+    /**
+     * Sets properties on each project based only on the history of its own directory:
+     * {@code changelist.module} formatted like {@code changelist},
+     * {@code changelist.module.count} and {@code changelist.module.scmTag}.
+     * These are too late to be used in {@code <version>} but may be used in plugin configuration.
+     */
+    private void setModuleChangelists(MavenSession session, Properties props) throws MavenExecutionException {
+        long start = System.nanoTime();
+        try {
+            Repository repo = warmCache.get(session.getRequest().getMultiModuleProjectDirectory()).repository();
+            Path root = repo.getWorkTree().toPath().toAbsolutePath().normalize();
+            Map<MavenProject, String> paths = new LinkedHashMap<>();
+            for (MavenProject project : session.getProjects()) {
+                Path rel = root.relativize(project.getBasedir().toPath().toAbsolutePath().normalize());
+                if (rel.startsWith("..")) {
+                    log.warn(project.getId() + " is outside " + root);
+                } else {
+                    paths.put(project, rel.toString().replace(File.separatorChar, '/'));
+                }
+            }
+            Map<String, ModuleHistory.Result> results = ModuleHistory.compute(repo, repo.resolve("HEAD"), paths.values());
+            log.debug("Spent " + (System.nanoTime() - start) / 1000 / 1000 + "ms on module histories");
+            String format = props.getProperty("changelist.format", "-rc%d.%s");
+            for (Map.Entry<MavenProject, String> entry : paths.entrySet()) {
+                MavenProject project = entry.getKey();
+                ModuleHistory.Result r = results.get(entry.getValue());
+                if (r.count == 0) {
+                    log.warn("No committed history for " + project.getId());
+                    continue;
+                }
+                String value = String.format(format, r.count, sanitize(r.last.abbreviate(ABBREV_LENGTH).name()));
+                log.debug("Setting on " + project.getId() + ": changelist.module=" + value);
+                project.getProperties().setProperty("changelist.module", value);
+                project.getProperties().setProperty("changelist.module.count", Integer.toString(r.count));
+                project.getProperties().setProperty("changelist.module.scmTag", r.last.name());
+            }
+        } catch (IOException x) {
+            throw new MavenExecutionException("Git operations failed", x);
         }
     }
 
@@ -0,0 +1,138 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * Counts the commits touching each of several directories, such as the modules of a reactor, in a single history walk.
+ * A commit touches a directory if its content there differs from that of every parent
+ * (or, for a root commit, if the directory exists),
+ * so merges count only when they changed something themselves, unlike the history simplification of {@code git log -- dir}.
+ * The root directory, {@code ""}, is touched by every commit changing anything.
+ */
+final class ModuleHistory {
+
+    /** History of one directory. */
+    static final class Result {
+
+        int count;
+        /** the most recent commit touching the directory, in the order of {@code git log} */
+        ObjectId last;
+
+    }
+
+    private ModuleHistory() {}
+
+    /**
+     * @param paths directories relative to the root of the working tree, separated by {@code /}
+     * @return results for each of the paths
+     */
+    static Map<String, Result> compute(Repository repo, ObjectId head, Collection<String> paths) throws IOException {
+        Map<String, Result> results = new HashMap<>();
+        for (String path : paths) {
+            results.put(path, new Result());
+        }
+        Result root = results.get("");
+        TreeSet<String> nested = new TreeSet<>(results.keySet());
+        nested.remove("");
+        TreeFilter filter = nested.isEmpty() ? null : PathFilterGroup.createFromStrings(nested);
+        try (ObjectReader reader = repo.newObjectReader(); RevWalk walk = new RevWalk(reader); TreeWalk tw = new TreeWalk(repo, reader)) {
+            walk.setRetainBody(false);
+            walk.markStart(walk.parseCommit(head));
+            for (RevCommit c : walk) {
+                RevCommit[] parents = c.getParents();
+                for (RevCommit p : parents) {
+                    walk.parseHeaders(p);
+                }
+                if (root != null && differsFromAll(c, parents)) {
+                    touch(root, c);
+                }
+                if (filter == null) {
+                    continue;
+                }
+                tw.reset();
+                tw.addTree(c.getTree());
+                for (RevCommit p : parents) {
+                    tw.addTree(p.getTree());
+                }
+                tw.setRecursive(false);
+                tw.setFilter(parents.length == 0 ? filter : AndTreeFilter.create(filter, TreeFilter.ANY_DIFF));
+                while (tw.next()) {
+                    Result r = results.get(tw.getPathString());
+                    if (r != null && differsFromAll(tw, parents.length)) {
+                        touch(r, c);
+                    }
+                    if (tw.isSubtree()) {
+                        tw.enterSubtree();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private static void touch(Result r, RevCommit c) {
+        if (r.count++ == 0) {
+            r.last = c.copy();
+        }
+    }
+
+    private static boolean differsFromAll(RevCommit c, RevCommit[] parents) {
+        for (RevCommit p : parents) {
+            if (p.getTree().equals(c.getTree())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the entry in the commit’s tree differs from that in each parent’s tree
+     */
+    private static boolean differsFromAll(TreeWalk tw, int parents) {
+        for (int i = 1; i <= parents; i++) {
+            if (tw.getRawMode(0) == tw.getRawMode(i) && tw.idEqual(0, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
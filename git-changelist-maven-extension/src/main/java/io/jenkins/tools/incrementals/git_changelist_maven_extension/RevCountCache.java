@@ -0,0 +1,218 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.util.NB;
+
+/**
+ * Remembers revcounts of recently built commits, so that the next build need only count newer commits.
+ * Stored under {@code .git/git-changelist-maven-extension/revcounts}:
+ * a magic number and format version, the number of entries,
+ * then each commit id with its count, all followed by a CRC-32 of the preceding bytes.
+ */
+final class RevCountCache {
+
+    private static final int MAGIC = 0x52435443; // RCTC
+    private static final int VERSION = 1;
+    /** How many recent commits to remember. */
+    private static final int MAX_ENTRIES = 64;
+    /** How far back from HEAD to look for a cached commit before giving up. */
+    private static final int MAX_DISTANCE = 10000;
+
+    private final File file;
+    /** oldest first */
+    private final Map<ObjectId, Integer> counts = new LinkedHashMap<>();
+
+    private RevCountCache(File file) {
+        this.file = file;
+    }
+
+    static File location(Repository repo, String name) {
+        return new File(new File(repo.getCommonDirectory(), "git-changelist-maven-extension"), name);
+    }
+
+    /**
+     * @return a cache which will overwrite any existing one when saved
+     */
+    static RevCountCache empty(Repository repo) {
+        return new RevCountCache(location(repo, "revcounts"));
+    }
+
+    /**
+     * @return the cache, empty if it has not yet been written
+     * @throws IOException if it is unreadable or corrupt
+     */
+    static RevCountCache read(Repository repo) throws IOException {
+        RevCountCache cache = empty(repo);
+        if (!cache.file.isFile()) {
+            return cache;
+        }
+        byte[] data = readChecked(cache.file, 16);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unrecognized format of " + cache.file);
+            }
+            int n = in.readInt();
+            if (n < 0 || data.length != 16 + n * (Constants.OBJECT_ID_LENGTH + 4)) {
+                throw new IOException("Truncated " + cache.file);
+            }
+            byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+            for (int i = 0; i < n; i++) {
+                in.readFully(raw);
+                cache.counts.put(ObjectId.fromRaw(raw), in.readInt());
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Counts the commits reachable from HEAD using the nearest cached ancestor, if there is one.
+     * @return the count, or -1 if no cached commit is a recent ancestor
+     */
+    int count(Repository repo, ObjectId head) throws IOException {
+        Integer cached = counts.get(head);
+        if (cached != null) {
+            return cached;
+        }
+        if (counts.isEmpty()) {
+            return -1;
+        }
+        try (RevWalk walk = new RevWalk(repo)) {
+            walk.setRetainBody(false);
+            RevCommit headC = walk.parseCommit(head);
+            walk.markStart(headC);
+            RevCommit base = null;
+            int distance = 0;
+            for (RevCommit c : walk) {
+                if (counts.containsKey(c)) {
+                    base = c;
+                    break;
+                }
+                if (++distance > MAX_DISTANCE) {
+                    return -1;
+                }
+            }
+            if (base == null) {
+                return -1;
+            }
+            // Commits walked so far need not be exactly those unreachable from base, so count those separately.
+            walk.reset();
+            walk.markStart(headC);
+            walk.markUninteresting(base);
+            int count = counts.get(base);
+            for (RevCommit c : walk) {
+                count++;
+            }
+            return count;
+        }
+    }
+
+    void put(ObjectId commit, int count) {
+        counts.remove(commit);
+        counts.put(commit.copy(), count);
+        Iterator<ObjectId> it = counts.keySet().iterator();
+        while (counts.size() > MAX_ENTRIES) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * Writes the cache atomically.
+     */
+    void save() throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buf)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(counts.size());
+            byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+            for (Map.Entry<ObjectId, Integer> entry : counts.entrySet()) {
+                entry.getKey().copyRawTo(raw, 0);
+                out.write(raw);
+                out.writeInt(entry.getValue());
+            }
+        }
+        writeChecked(file, buf);
+    }
+
+    /**
+     * Reads a file written by {@link #writeChecked}.
+     * @param minimum the smallest valid length, including the checksum
+     * @return the contents, including the checksum
+     * @throws IOException if it is too short or the checksum does not match
+     */
+    static byte[] readChecked(File file, int minimum) throws IOException {
+        byte[] data = Files.readAllBytes(file.toPath());
+        if (data.length < minimum) {
+            throw new IOException("Truncated " + file);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        if ((int) crc.getValue() != NB.decodeInt32(data, data.length - 4)) {
+            throw new IOException("Checksum mismatch in " + file);
+        }
+        return data;
+    }
+
+    /**
+     * Writes some content followed by its CRC-32, atomically, so concurrent builds never see a partial file.
+     */
+    static void writeChecked(File file, ByteArrayOutputStream buf) throws IOException {
+        byte[] data = Arrays.copyOf(buf.toByteArray(), buf.size() + 4);
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        NB.encodeInt32(data, data.length - 4, (int) crc.getValue());
+        Files.createDirectories(file.getParentFile().toPath());
+        Path tmp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+        try {
+            Files.write(tmp, data);
+            Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+}
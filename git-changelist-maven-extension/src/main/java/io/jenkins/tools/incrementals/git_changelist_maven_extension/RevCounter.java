@@ -0,0 +1,371 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * Computes {@code git rev-list --count} for a tip and any of its ancestors from a single walk.
+ * The history reachable from the tip is loaded once in topological order;
+ * the count of any other commit in it is then derived in memory and memoized,
+ * so asking about many commits costs no further access to the object database.
+ * <p>When a {@link CommitGraph} is available, only commits newer than it are parsed;
+ * the rest of the history is read from the graph and ordered by generation number.
+ * <p>Commits are identified by their index in the topological order; the tip is always {@code 0}.
+ */
+final class RevCounter implements AutoCloseable {
+
+    /** Ancestor counts are computed for this many commits per sweep, one bit each. */
+    private static final int BATCH = Long.SIZE;
+
+    private final RevWalk walk;
+    private final CommitGraph graph;
+    /** Commits which had to be parsed, at the start of the topological order (all of them, without a graph). */
+    private Node[] walked;
+    /** Graph positions of the remaining commits, continuing the topological order. */
+    private int[] positions;
+    /** Inverse of {@link #positions}, or -1 for positions not reachable from the tip. */
+    private int[] indexOfPos;
+    /** The parents of commit {@code i} are {@code parentIndices[parentStart[i]]} up to {@code parentIndices[parentStart[i + 1] - 1]}. */
+    private int[] parentStart;
+    private int[] parentIndices;
+    /** memoized ancestor counts, or 0 if not yet known */
+    private int[] counts;
+
+    /**
+     * @param graph a commit-graph to use, or null to parse every commit
+     */
+    RevCounter(Repository repo, CommitGraph graph) {
+        this.graph = graph;
+        walk = new RevWalk(repo) {
+            @Override protected RevCommit createCommit(AnyObjectId id) {
+                return new Node(id);
+            }
+        };
+        // Only needed for the rare commit we describe to the user; see parse.
+        walk.setRetainBody(false);
+    }
+
+    /**
+     * Loads the full history of a commit.
+     * @throws IOException including if the commit-graph turns out to be unusable
+     */
+    void load(AnyObjectId tip) throws IOException {
+        if (graph == null) {
+            loadWalk(tip);
+        } else {
+            loadGraph(tip);
+        }
+        counts = new int[size()];
+        counts[0] = counts.length;
+    }
+
+    private void loadWalk(AnyObjectId tip) throws IOException {
+        walk.sort(RevSort.TOPO);
+        walk.markStart(walk.parseCommit(tip));
+        List<Node> all = new ArrayList<>();
+        for (RevCommit c : walk) {
+            Node n = (Node) c;
+            n.index = all.size();
+            all.add(n);
+        }
+        walked = all.toArray(new Node[0]);
+        positions = new int[0];
+        IntList parents = new IntList();
+        parentStart = new int[walked.length + 1];
+        for (int i = 0; i < walked.length; i++) {
+            parentStart[i] = parents.size();
+            for (RevCommit p : walked[i].getParents()) {
+                parents.add(((Node) p).index);
+            }
+        }
+        parentStart[walked.length] = parents.size();
+        parentIndices = parents.toArray();
+    }
+
+    private void loadGraph(AnyObjectId tip) throws IOException {
+        // First parse commits too new to be in the graph, in depth-first postorder.
+        List<Node> postorder = new ArrayList<>();
+        IntList boundary = new IntList();
+        int tipPos = graph.find(tip);
+        if (tipPos >= 0) {
+            boundary.add(tipPos);
+        } else {
+            Deque<Node> stack = new ArrayDeque<>();
+            stack.push((Node) walk.parseCommit(tip));
+            while (!stack.isEmpty()) {
+                Node n = stack.peek();
+                if (n.finished) {
+                    stack.pop();
+                } else if (n.expanded) {
+                    stack.pop();
+                    n.finished = true;
+                    postorder.add(n);
+                } else {
+                    n.expanded = true;
+                    for (RevCommit p : n.getParents()) {
+                        Node pn = (Node) p;
+                        if (pn.finished || pn.pos >= 0) {
+                            continue;
+                        }
+                        int pos = graph.find(pn);
+                        if (pos >= 0) {
+                            pn.pos = pos;
+                            boundary.add(pos);
+                        } else {
+                            walk.parseHeaders(pn);
+                            stack.push(pn);
+                        }
+                    }
+                }
+            }
+        }
+        int k = postorder.size();
+        walked = new Node[k];
+        for (int i = 0; i < k; i++) {
+            walked[i] = postorder.get(k - 1 - i);
+            walked[i].index = i;
+        }
+        // Then collect everything reachable in the graph, without parsing anything.
+        BitSet seen = new BitSet(graph.size());
+        IntList found = new IntList();
+        IntList foundParents = new IntList();
+        IntList foundParentEnds = new IntList();
+        IntList stack = new IntList();
+        int maxGeneration = 0;
+        for (int i = 0; i < boundary.size(); i++) {
+            int pos = boundary.get(i);
+            if (!seen.get(pos)) {
+                seen.set(pos);
+                stack.add(pos);
+            }
+        }
+        while (!stack.isEmpty()) {
+            int pos = stack.removeLast();
+            int generation = graph.generation(pos);
+            if (!CommitGraph.usableGeneration(generation)) {
+                throw new IOException("commit-graph lacks usable generation numbers");
+            }
+            maxGeneration = Math.max(maxGeneration, generation);
+            found.add(pos);
+            int start = foundParents.size();
+            graph.parents(pos, foundParents);
+            foundParentEnds.add(foundParents.size());
+            for (int j = start; j < foundParents.size(); j++) {
+                int parent = foundParents.get(j);
+                if (parent < 0 || parent >= graph.size()) {
+                    throw new IOException("commit-graph parent position out of range: " + parent);
+                }
+                if (!seen.get(parent)) {
+                    seen.set(parent);
+                    stack.add(parent);
+                }
+            }
+        }
+        // A parent always has a lower generation than its children, so sorting by descending generation is topological.
+        int m = found.size();
+        int[] buckets = new int[maxGeneration + 2];
+        for (int i = 0; i < m; i++) {
+            buckets[maxGeneration - graph.generation(found.get(i)) + 1]++;
+        }
+        for (int g = 1; g < buckets.length; g++) {
+            buckets[g] += buckets[g - 1];
+        }
+        int[] order = new int[m]; // order[r] = index into found of the r-th commit in topological order
+        int[] rank = new int[m];
+        for (int i = 0; i < m; i++) {
+            int r = buckets[maxGeneration - graph.generation(found.get(i))]++;
+            order[r] = i;
+            rank[i] = r;
+        }
+        positions = new int[m];
+        indexOfPos = new int[graph.size()];
+        Arrays.fill(indexOfPos, -1);
+        for (int r = 0; r < m; r++) {
+            positions[r] = found.get(order[r]);
+            indexOfPos[positions[r]] = k + r;
+        }
+        IntList parents = new IntList();
+        parentStart = new int[k + m + 1];
+        for (int i = 0; i < k; i++) {
+            parentStart[i] = parents.size();
+            for (RevCommit p : walked[i].getParents()) {
+                Node pn = (Node) p;
+                parents.add(pn.pos >= 0 ? indexOfPos[pn.pos] : pn.index);
+            }
+        }
+        for (int r = 0; r < m; r++) {
+            parentStart[k + r] = parents.size();
+            int i = order[r];
+            for (int j = i == 0 ? 0 : foundParentEnds.get(i - 1); j < foundParentEnds.get(i); j++) {
+                parents.add(indexOfPos[foundParents.get(j)]);
+            }
+        }
+        parentStart[k + m] = parents.size();
+        parentIndices = parents.toArray();
+    }
+
+    /**
+     * @return the number of commits reachable from the tip, including itself
+     */
+    int size() {
+        return walked.length + positions.length;
+    }
+
+    /**
+     * @return the index of a commit, or -1 if it is not reachable from the tip
+     */
+    int indexOf(AnyObjectId id) {
+        if (graph != null) {
+            int pos = graph.find(id);
+            if (pos >= 0) {
+                return indexOfPos[pos];
+            }
+        }
+        return ((Node) walk.lookupCommit(id)).index;
+    }
+
+    /**
+     * @return all commits reachable from the tip, in topological order
+     */
+    Iterable<ObjectId> commits() {
+        return () -> IntStream.range(0, size()).mapToObj(this::id).iterator();
+    }
+
+    /**
+     * Passes the abbreviated id of every commit reachable from the tip, without allocating.
+     * @see AbbreviationIndex#prefix
+     */
+    void forEachPrefix(LongConsumer action) {
+        for (Node n : walked) {
+            action.accept(AbbreviationIndex.prefix(n));
+        }
+        for (int pos : positions) {
+            action.accept(graph.prefix(pos));
+        }
+    }
+
+    ObjectId id(int index) {
+        return index < walked.length ? walked[index] : graph.id(positions[index - walked.length]);
+    }
+
+    /**
+     * Fully parses a commit, including its message.
+     */
+    RevCommit parse(int index) throws IOException {
+        RevCommit c = walk.parseCommit(id(index));
+        walk.parseBody(c);
+        return c;
+    }
+
+    /**
+     * @return the number of commits reachable from the given one, including itself
+     */
+    int count(int index) {
+        if (counts[index] == 0) {
+            count(new int[] {index});
+        }
+        return counts[index];
+    }
+
+    /**
+     * Computes counts for several commits at once, ahead of calls to {@link #count(int)}.
+     */
+    void count(int... indices) {
+        IntList pending = new IntList();
+        for (int index : indices) {
+            if (counts[index] == 0) {
+                counts[index] = -1; // pending
+                pending.add(index);
+            }
+        }
+        int[] all = pending.toArray();
+        for (int i = 0; i < all.length; i += BATCH) {
+            sweep(Arrays.copyOfRange(all, i, Math.min(i + BATCH, all.length)));
+        }
+    }
+
+    /**
+     * Propagates one bit per target from children to parents in a single pass over the topological order,
+     * then counts how many commits received each bit.
+     */
+    private void sweep(int[] targets) {
+        long[] reached = new long[counts.length];
+        int first = counts.length;
+        for (int bit = 0; bit < targets.length; bit++) {
+            reached[targets[bit]] |= 1L << bit;
+            first = Math.min(first, targets[bit]);
+        }
+        int[] found = new int[targets.length];
+        for (int i = first; i < reached.length; i++) {
+            long mask = reached[i];
+            if (mask == 0) {
+                continue;
+            }
+            for (int p = parentStart[i]; p < parentStart[i + 1]; p++) {
+                reached[parentIndices[p]] |= mask;
+            }
+            while (mask != 0) {
+                found[Long.numberOfTrailingZeros(mask)]++;
+                mask &= mask - 1;
+            }
+        }
+        for (int bit = 0; bit < targets.length; bit++) {
+            counts[targets[bit]] = found[bit];
+        }
+    }
+
+    @Override public void close() {
+        walk.close();
+    }
+
+    private static final class Node extends RevCommit {
+        private static final long serialVersionUID = 1L;
+        int index = -1;
+        /** position in the commit-graph, or -1 if it is not there or not yet looked up */
+        int pos = -1;
+        boolean expanded;
+        boolean finished;
+        Node(AnyObjectId id) {
+            super(id);
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * Locates HEAD relative to the nearest tagged ancestor, similarly to {@code git describe},
+ * looking at a bounded number of commits rather than all history.
+ */
+final class TagDistance {
+
+    /** How far back from HEAD to look for a tag before giving up. */
+    static final int MAX_DISTANCE = 10000;
+
+    /** name of the tag, without {@code refs/tags/} */
+    final String tag;
+    final ObjectId base;
+    /** the number of commits reachable from HEAD but not from the tagged commit */
+    final int distance;
+    /** those commits in the same range which share an abbreviation with another, mapped to their own distances */
+    final Map<ObjectId, Integer> clashing;
+
+    private TagDistance(String tag, ObjectId base, int distance, Map<ObjectId, Integer> clashing) {
+        this.tag = tag;
+        this.base = base;
+        this.distance = distance;
+        this.clashing = clashing;
+    }
+
+    /**
+     * @param glob tag names to consider, with {@code *} and {@code ?} wildcards
+     * @return null if no matching tag was found within {@link #MAX_DISTANCE} commits
+     */
+    static TagDistance describe(Repository repo, ObjectId head, String glob) throws IOException {
+        Map<ObjectId, String> tags = tags(repo, glob);
+        if (tags.isEmpty()) {
+            return null;
+        }
+        try (RevWalk walk = new RevWalk(repo)) {
+            walk.setRetainBody(false);
+            RevCommit headC = walk.parseCommit(head);
+            walk.markStart(headC);
+            RevCommit base = null;
+            int seen = 0;
+            for (RevCommit c : walk) {
+                if (tags.containsKey(c)) {
+                    base = c;
+                    break;
+                }
+                if (++seen > MAX_DISTANCE) {
+                    return null;
+                }
+            }
+            if (base == null) {
+                return null;
+            }
+            // As in RevCountCache.count, commits walked so far need not be exactly those unreachable from the tag.
+            List<RevCommit> range = new ArrayList<>();
+            AbbreviationIndex index = new AbbreviationIndex();
+            walk.reset();
+            walk.markStart(headC);
+            walk.markUninteresting(base);
+            for (RevCommit c : walk) {
+                range.add(c);
+                index.add(AbbreviationIndex.prefix(c));
+            }
+            long[] duplicates = index.duplicates();
+            Map<ObjectId, Integer> clashing = new HashMap<>();
+            for (RevCommit c : range) {
+                if (Arrays.binarySearch(duplicates, AbbreviationIndex.prefix(c)) >= 0) {
+                    walk.reset();
+                    walk.markStart(c);
+                    walk.markUninteresting(base);
+                    int distance = 0;
+                    for (RevCommit ignored : walk) {
+                        distance++;
+                    }
+                    clashing.put(c.copy(), distance);
+                }
+            }
+            return new TagDistance(tags.get(base), base.copy(), range.size(), clashing);
+        }
+    }
+
+    /**
+     * @return matching tags by the commit they point to, taking the first name alphabetically when several point to one commit
+     */
+    private static Map<ObjectId, String> tags(Repository repo, String glob) throws IOException {
+        Pattern pattern = Pattern.compile(("\\Q" + glob + "\\E").replace("*", "\\E.*\\Q").replace("?", "\\E.\\Q"));
+        Map<String, ObjectId> byName = new TreeMap<>();
+        for (Ref ref : repo.getRefDatabase().getRefsByPrefix(Constants.R_TAGS)) {
+            String name = ref.getName().substring(Constants.R_TAGS.length());
+            if (pattern.matcher(name).matches()) {
+                Ref peeled = repo.getRefDatabase().peel(ref);
+                byName.put(name, peeled.getPeeledObjectId() != null ? peeled.getPeeledObjectId() : ref.getObjectId());
+            }
+        }
+        Map<ObjectId, String> tags = new HashMap<>();
+        byName.forEach((name, id) -> tags.putIfAbsent(id, name));
+        return tags;
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryBuilder;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.util.FS;
+
+/**
+ * Keeps repositories open between builds in a long-lived JVM such as the Maven daemon,
+ * along with the values last computed for each,
+ * so that rebuilding an unchanged HEAD need not look at history again.
+ */
+final class WarmCache {
+
+    private static final int MAX_REPOSITORIES = 8;
+
+    /** least recently used first */
+    private final Map<File, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, Entry> eldest) {
+            if (size() > MAX_REPOSITORIES) {
+                eldest.getValue().repo.close();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * @param dir a working tree
+     * @return the state for its repository, opening it if necessary
+     */
+    synchronized Entry get(File dir) throws IOException {
+        Entry entry = entries.get(dir);
+        if (entry == null) {
+            // as in Git.open
+            Repository repo = new RepositoryBuilder().setFS(FS.DETECTED).setGitDir(RepositoryCache.FileKey.lenient(dir, FS.DETECTED).getFile()).setMustExist(true).build();
+            entry = new Entry(repo);
+            entries.put(dir, entry);
+        }
+        return entry;
+    }
+
+    /** One repository. */
+    static final class Entry {
+
+        private final Repository repo;
+        private ObjectId head;
+        private long indexModified;
+        private long indexLength;
+        /** from {@link History#shallowState}, since deepening the history changes the count without moving HEAD */
+        private String shallow;
+        private int count;
+        private String timestamp;
+
+        Entry(Repository repo) {
+            this.repo = repo;
+        }
+
+        /**
+         * @return the open repository, which callers must not close
+         */
+        Repository repository() {
+            return repo;
+        }
+
+        /**
+         * @return true if {@link #count} and {@link #timestamp} were computed for this HEAD and neither the index nor the shallow boundary has changed since
+         */
+        synchronized boolean matches(ObjectId head) {
+            File index = repo.getIndexFile();
+            return head.equals(this.head) && index.lastModified() == indexModified && index.length() == indexLength && History.shallowState(repo).equals(shallow);
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        synchronized String timestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Records values which have been fully verified.
+         */
+        synchronized void remember(ObjectId head, int count, String timestamp) {
+            File index = repo.getIndexFile();
+            this.head = head.copy();
+            indexModified = index.lastModified();
+            indexLength = index.length();
+            shallow = History.shallowState(repo);
+            this.count = count;
+            this.timestamp = timestamp;
+        }
+
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class AbbreviationIndexTest {
+
+    @Test
+    public void prefix() {
+        ObjectId id = ObjectId.fromString("f8836047e430947b5b5c550732efc696f700fc14");
+        assertThat(String.format("%012x", AbbreviationIndex.prefix(id)), is(id.abbreviate(12).name()));
+        assertThat(AbbreviationIndex.prefix(ObjectId.zeroId()), is(0L));
+    }
+
+    @Test
+    public void duplicates() {
+        AbbreviationIndex index = new AbbreviationIndex();
+        for (long i = 0; i < 5000; i++) {
+            index.add(i * 7919);
+        }
+        index.add(7919 * 3);
+        index.add(0xffffffffffffL);
+        index.add(7919 * 3);
+        index.add(0xffffffffffffL);
+        index.add(7919 * 4000);
+        assertThat(index.size(), is(5005));
+        assertThat(index.duplicates().length, is(3));
+        assertThat(index.duplicates()[0], is(7919L * 3));
+        assertThat(index.duplicates()[1], is(7919L * 4000));
+        assertThat(index.duplicates()[2], is(0xffffffffffffL));
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeResult;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class BackendTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void sameAnswers() throws Exception {
+        assumeTrue(CliBackend.available(), "git not on PATH");
+        try (Git git = Git.init().setDirectory(dir).setInitialBranch("main").call()) {
+            Repository repo = git.getRepository();
+            write(".gitignore", "target/\n");
+            git.add().addFilepattern(".gitignore").call();
+            commit(git, "init", 1_500_000_000);
+            git.checkout().setCreateBranch(true).setName("side").call();
+            write("side.txt", "side");
+            git.add().addFilepattern("side.txt").call();
+            commit(git, "side", 1_500_000_100);
+            git.checkout().setName("main").call();
+            write("main.txt", "main");
+            git.add().addFilepattern("main.txt").call();
+            commit(git, "main", 1_500_000_200);
+            MergeResult merge = git.merge().include(repo.resolve("side")).setCommit(false).call();
+            assertThat(merge.getMergeStatus().isSuccessful(), is(true));
+            commit(git, "merge", 1_500_000_300);
+            compare(repo);
+            write("target/out.txt", "ignored");
+            compare(repo);
+            write("main.txt", "MAIN");
+            write("new/file.txt", "untracked");
+            Files.delete(new File(dir, "side.txt").toPath());
+            compare(repo);
+            git.add().addFilepattern(".").call();
+            compare(repo);
+        }
+    }
+
+    private void compare(Repository repo) throws Exception {
+        Backend jgit = new JGitBackend(repo, new ConsoleLogger(Logger.LEVEL_WARN, "test"));
+        Backend cli = new CliBackend(dir);
+        ObjectId head = jgit.head();
+        assertThat(cli.head(), is(head));
+        assertThat(cli.commitTime(head), is(jgit.commitTime(head)));
+        try (History history = new History(repo, head, new ConsoleLogger(Logger.LEVEL_WARN, "test"))) {
+            assertThat(cli.count(head, history), is(jgit.count(head, history)));
+        }
+        assertThat(cli.dirty(true), is(jgit.dirty(true)));
+        assertThat(cli.dirty(false).size(), is(jgit.dirty(false).size()));
+    }
+
+    private void write(String path, String content) throws Exception {
+        File f = new File(dir, path);
+        f.getParentFile().mkdirs();
+        Files.writeString(f.toPath(), content);
+    }
+
+    private static void commit(Git git, String message, long time) throws Exception {
+        PersonIdent ident = new PersonIdent("dev", "dev@nowhere.net", Instant.ofEpochSecond(time), ZoneOffset.UTC);
+        git.commit().setMessage(message).setAuthor(ident).setCommitter(ident).call();
+    }
+
+}
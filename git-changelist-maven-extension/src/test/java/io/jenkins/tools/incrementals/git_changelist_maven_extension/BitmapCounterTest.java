@@ -0,0 +1,198 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class BitmapCounterTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void sameAsWalk() throws Exception {
+        sameAsWalk(false);
+    }
+
+    @Test
+    public void sameAsWalkWithReverseIndex() throws Exception {
+        sameAsWalk(true);
+    }
+
+    private void sameAsWalk(boolean reverseIndex) throws Exception {
+        assumeTrue(git("--version") != null, "git not on PATH");
+        ObjectId tree, packed, fork;
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            Repository repo = git.getRepository();
+            try (ObjectInserter ins = repo.newObjectInserter()) {
+                tree = ins.insert(new TreeFormatter());
+                ObjectId c = commit(ins, tree, "root");
+                for (int i = 0; i < 20; i++) {
+                    c = commit(ins, tree, "main #" + i, c);
+                }
+                fork = c;
+                ObjectId side = c;
+                for (int i = 0; i < 5; i++) {
+                    side = commit(ins, tree, "side #" + i, side);
+                    c = commit(ins, tree, "more #" + i, c);
+                }
+                packed = commit(ins, tree, "merge", c, side);
+                ins.flush();
+            }
+            update(repo, packed);
+        }
+        assertThat(git("-c", "repack.writeBitmaps=true", "-c", "pack.writeBitmapHashCache=true", "-c", "pack.writeReverseIndex=" + reverseIndex, "gc", "--quiet"), is(""));
+        assumeTrue(new File(dir, ".git/objects/pack").list((d, name) -> name.endsWith(".bitmap")).length > 0, "no bitmap written");
+        if (reverseIndex) {
+            assumeTrue(new File(dir, ".git/objects/pack").list((d, name) -> name.endsWith(".rev")).length > 0, "no reverse index written");
+        }
+        try (Git git = Git.open(dir)) {
+            Repository repo = git.getRepository();
+            List<ObjectId> heads;
+            try (ObjectInserter ins = repo.newObjectInserter()) {
+                ObjectId a = commit(ins, tree, "after #1", packed);
+                ObjectId b = commit(ins, tree, "after #2", a);
+                // brings in history from before the bitmapped commit, some of it already counted there:
+                ObjectId side = commit(ins, tree, "late side", fork);
+                ObjectId merge = commit(ins, tree, "late merge", b, side);
+                ObjectId c = commit(ins, tree, "after #3", merge);
+                ins.flush();
+                heads = List.of(packed, a, b, merge, c);
+            }
+            for (ObjectId head : heads) {
+                update(repo, head);
+                int walked;
+                Set<ObjectId> walkedCommits = new HashSet<>();
+                try (RevCounter counter = new RevCounter(repo, null)) {
+                    counter.load(head);
+                    walked = counter.count(0);
+                    counter.commits().forEach(walkedCommits::add);
+                }
+                try (BitmapCounter bitmaps = new BitmapCounter(repo)) {
+                    assertThat(bitmaps.load(head), is(true));
+                    assertThat(head.name(), bitmaps.count(), is(walked));
+                    Set<ObjectId> bitmapCommits = new HashSet<>();
+                    bitmaps.commits().forEach(c -> bitmapCommits.add(c.copy()));
+                    assertThat(bitmapCommits, is(walkedCommits));
+                }
+                assertThat(git("rev-list", "--count", head.name()), is(walked + "\n"));
+            }
+        }
+    }
+
+    @Test
+    public void shallow() throws Exception {
+        assumeTrue(git("--version") != null, "git not on PATH");
+        ObjectId boundary, head;
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            Repository repo = git.getRepository();
+            try (ObjectInserter ins = repo.newObjectInserter()) {
+                ObjectId tree = ins.insert(new TreeFormatter());
+                ObjectId c = commit(ins, tree, "root");
+                for (int i = 0; i < 10; i++) {
+                    c = commit(ins, tree, "old #" + i, c);
+                }
+                boundary = c;
+                for (int i = 0; i < 3; i++) {
+                    c = commit(ins, tree, "new #" + i, c);
+                }
+                head = c;
+                ins.flush();
+            }
+            update(repo, head);
+        }
+        assertThat(git("-c", "repack.writeBitmaps=true", "gc", "--quiet"), is(""));
+        assumeTrue(new File(dir, ".git/objects/pack").list((d, name) -> name.endsWith(".bitmap")).length > 0, "no bitmap written");
+        Files.writeString(new File(dir, ".git/shallow").toPath(), boundary.name() + "\n");
+        try (Git git = Git.open(dir)) {
+            Repository repo = git.getRepository();
+            try (History history = new History(repo, head, new ConsoleLogger(Logger.LEVEL_WARN, "test"))) {
+                assertThat(history.count(), is(4));
+            }
+        }
+        assertThat(git("rev-list", "--count", head.name()), is("4\n"));
+    }
+
+    private static void update(Repository repo, ObjectId head) throws Exception {
+        RefUpdate ru = repo.updateRef("refs/heads/master");
+        ru.setNewObjectId(head);
+        ru.setForceUpdate(true);
+        ru.update();
+    }
+
+    /**
+     * @return the standard output, or null if {@code git} could not be run
+     */
+    private String git(String... args) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(List.of(args));
+        Process p;
+        try {
+            p = new ProcessBuilder(command).directory(dir).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        } catch (IOException x) {
+            return null;
+        }
+        String out = new String(p.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertThat(String.join(" ", command), p.waitFor(), is(0));
+        return out;
+    }
+
+    private static ObjectId commit(ObjectInserter ins, ObjectId tree, String message, ObjectId... parents) throws Exception {
+        CommitBuilder cb = new CommitBuilder();
+        cb.setTreeId(tree);
+        cb.setParentIds(parents);
+        PersonIdent ident = new PersonIdent("dev", "dev@nowhere.net");
+        cb.setAuthor(ident);
+        cb.setCommitter(ident);
+        cb.setMessage(message);
+        return ins.insert(cb);
+    }
+
+}
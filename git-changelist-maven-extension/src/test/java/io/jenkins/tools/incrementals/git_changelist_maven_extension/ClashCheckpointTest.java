@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ClashCheckpointTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void newerCommits() throws Exception {
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            Repository repo = git.getRepository();
+            assertThat(ClashCheckpoint.read(repo), nullValue());
+            ObjectId first = git.commit().setAllowEmpty(true).setMessage("first").call();
+            ObjectId second = git.commit().setAllowEmpty(true).setMessage("second").call();
+            long[] prefixes = {AbbreviationIndex.prefix(first), AbbreviationIndex.prefix(second)};
+            Arrays.sort(prefixes);
+            ClashCheckpoint.save(repo, second, prefixes);
+            ObjectId third = git.commit().setAllowEmpty(true).setMessage("third").call();
+            ClashCheckpoint checkpoint = ClashCheckpoint.read(repo);
+            assertThat(checkpoint.size(), is(2));
+            long[] newer = checkpoint.scan(repo, third);
+            assertThat(newer, is(new long[] {AbbreviationIndex.prefix(third)}));
+            assertThat(checkpoint.mayClash(newer), is(false));
+            assertThat(checkpoint.mayClash(new long[] {AbbreviationIndex.prefix(first)}), is(true));
+            assertThat(checkpoint.mayClash(new long[] {7, 7}), is(true));
+            assertThat(checkpoint.scan(repo, second).length, is(0));
+        }
+    }
+
+    @Test
+    public void merge() throws Exception {
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            Repository repo = git.getRepository();
+            ClashCheckpoint.save(repo, ObjectId.zeroId(), new long[] {1, 5, 5, 9});
+            assertThat(ClashCheckpoint.read(repo).merge(new long[] {0, 6, 10}), is(new long[] {0, 1, 5, 5, 6, 9, 10}));
+        }
+    }
+
+    @Test
+    public void corrupt() throws Exception {
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            Repository repo = git.getRepository();
+            ClashCheckpoint.save(repo, ObjectId.zeroId(), new long[] {0xffffffffffffL});
+            File file = RevCountCache.location(repo, "clash-checkpoint");
+            assertThat(ClashCheckpoint.read(repo).merge(new long[0]), is(new long[] {0xffffffffffffL}));
+            byte[] data = Files.readAllBytes(file.toPath());
+            data[data.length - 5] ^= 1;
+            Files.write(file.toPath(), data);
+            assertThrows(IOException.class, () -> ClashCheckpoint.read(repo));
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CommitGraphTest {
+
+    private static final int CHUNK_EDGE = 0x45444745;
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void corrupt() throws Exception {
+        File objects;
+        ObjectId octopus;
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            Repository repo = git.getRepository();
+            try (ObjectInserter ins = repo.newObjectInserter()) {
+                ObjectId tree = ins.insert(new TreeFormatter());
+                ObjectId a = commit(ins, tree, "a");
+                octopus = commit(ins, tree, "octopus", commit(ins, tree, "b", a), commit(ins, tree, "c", a), commit(ins, tree, "d", a));
+                ins.flush();
+            }
+            RefUpdate ru = repo.updateRef("refs/heads/master");
+            ru.setNewObjectId(octopus);
+            ru.update();
+            StoredConfig config = repo.getConfig();
+            config.setBoolean("core", null, "commitGraph", true);
+            config.setBoolean("gc", null, "writeCommitGraph", true);
+            config.setBoolean("pack", null, "buildBitmaps", false);
+            config.save();
+            git.gc().call();
+            objects = new File(repo.getDirectory(), "objects");
+        }
+        File file = new File(objects, "info/commit-graph");
+        byte[] whole = Files.readAllBytes(file.toPath());
+        CommitGraph graph = CommitGraph.open(objects);
+        assertThat(graph.size(), is(5));
+        assertThat(graph.parents(graph.find(octopus), new IntList()), is(3));
+        // Anything cut short of the trailing checksum is noticed when opening:
+        for (int length = 0; length < whole.length - 20; length++) {
+            Files.write(file.toPath(), Arrays.copyOf(whole, length));
+            assertThrows(IOException.class, () -> CommitGraph.open(objects), "length " + length);
+        }
+        // An extra edge naming a commit which is not there is noticed when read:
+        byte[] bad = whole.clone();
+        ByteBuffer buf = ByteBuffer.wrap(bad);
+        int edge = -1;
+        for (int entry = 8; buf.getInt(entry) != 0; entry += 12) {
+            if (buf.getInt(entry) == CHUNK_EDGE) {
+                edge = (int) buf.getLong(entry + 4);
+            }
+        }
+        buf.putInt(edge, 0x80000000 | 1000);
+        Files.write(file.toPath(), bad);
+        CommitGraph badGraph = CommitGraph.open(objects);
+        assertThrows(IOException.class, () -> badGraph.parents(badGraph.find(octopus), new IntList()));
+    }
+
+    private static ObjectId commit(ObjectInserter ins, ObjectId tree, String message, ObjectId... parents) throws Exception {
+        CommitBuilder cb = new CommitBuilder();
+        cb.setTreeId(tree);
+        cb.setParentIds(parents);
+        PersonIdent ident = new PersonIdent("dev", "dev@nowhere.net");
+        cb.setAuthor(ident);
+        cb.setCommitter(ident);
+        cb.setMessage(message);
+        return ins.insert(cb);
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Set;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class DirtyCheckTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void plain() throws Exception {
+        changes(false);
+    }
+
+    @Test
+    public void attributes() throws Exception {
+        changes(true);
+    }
+
+    private void changes(boolean attributes) throws Exception {
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            write(".gitignore", "target/\n");
+            write("a.txt", "one");
+            write("sub/b.txt", "two");
+            if (attributes) {
+                write(".gitattributes", "*.txt text\n");
+            }
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("init").call();
+            assertClean(git);
+            write("target/classes/x.class", "ignored");
+            new File(dir, "empty").mkdir();
+            assertClean(git);
+            write("a.txt", "ONE"); // same size, probably same timestamp
+            assertDirty(git, "a.txt");
+            write("a.txt", "one");
+            assertClean(git);
+            write("sub/new.txt", "three");
+            assertDirty(git, "sub/new.txt");
+            git.add().addFilepattern("sub/new.txt").call();
+            assertDirty(git, "sub/new.txt");
+            git.commit().setMessage("new").call();
+            assertClean(git);
+            Files.delete(new File(dir, "sub/b.txt").toPath());
+            write("c.txt", "four");
+            assertDirty(git, "c.txt", "sub/b.txt");
+            assertThat(DirtyCheck.find(git.getRepository(), false).size(), is(1));
+        }
+    }
+
+    private void write(String path, String content) throws Exception {
+        File f = new File(dir, path);
+        f.getParentFile().mkdirs();
+        Files.writeString(f.toPath(), content);
+    }
+
+    private static void assertClean(Git git) throws Exception {
+        assertThat(DirtyCheck.find(git.getRepository(), true), empty());
+        assertThat(git.status().call().isClean(), is(true));
+    }
+
+    private static void assertDirty(Git git, String... paths) throws Exception {
+        assertThat(DirtyCheck.find(git.getRepository(), true), is(Set.of(paths)));
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Properties;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class HandoffTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void unshallow() throws Exception {
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            Repository repo = git.getRepository();
+            ObjectId head = git.commit().setMessage("one").setAllowEmpty(true).setSign(false).call().getId();
+            File shallow = new File(dir, ".git/shallow");
+            Files.writeString(shallow.toPath(), head.name() + "\n", StandardCharsets.US_ASCII);
+            Properties props = new Properties();
+            props.setProperty("changelist", "-rc1." + head.abbreviate(12).name());
+            props.setProperty("scmTag", head.name());
+            props.setProperty("project.build.outputTimestamp", "2026-01-01T00:00:00Z");
+            new Handoff(repo, head, new Properties(), Map.of()).write(props);
+            assertThat(new Handoff(repo, head, new Properties(), Map.of()).read(), is(props));
+            Properties format = new Properties();
+            format.setProperty("changelist.format", "%d");
+            assertThat(new Handoff(repo, head, format, Map.of()).read(), is(nullValue()));
+            // as by git fetch --unshallow, which leaves HEAD alone but makes the count from the shallow clone wrong:
+            Files.delete(shallow.toPath());
+            assertThat(new Handoff(repo, head, new Properties(), Map.of()).read(), is(nullValue()));
+        }
+    }
+
+    @Test
+    public void gitHubRepo() throws Exception {
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            Repository repo = git.getRepository();
+            ObjectId head = git.commit().setMessage("one").setAllowEmpty(true).setSign(false).call().getId();
+            Map<String, String> env = Map.of("CHANGE_FORK", "jglick", "JOB_NAME", "Plugins/build-token-root-plugin/PR-21");
+            Properties props = new Properties();
+            props.setProperty("changelist", "-rc1." + head.abbreviate(12).name());
+            props.setProperty("scmTag", head.name());
+            props.setProperty("project.build.outputTimestamp", "2026-01-01T00:00:00Z");
+            props.setProperty("gitHubRepo", "jglick/build-token-root-plugin");
+            props.setProperty("unrelated", "x");
+            new Handoff(repo, head, new Properties(), env).write(props);
+            Properties handed = new Handoff(repo, head, new Properties(), env).read();
+            assertThat(handed.getProperty("gitHubRepo"), is("jglick/build-token-root-plugin"));
+            assertThat(handed.getProperty("unrelated"), is(nullValue()));
+            // a build of a different pull request, or of no pull request, on the same commit:
+            assertThat(new Handoff(repo, head, new Properties(), Map.of("CHANGE_FORK", "someone", "JOB_NAME", "Plugins/build-token-root-plugin/PR-22")).read(), is(nullValue()));
+            assertThat(new Handoff(repo, head, new Properties(), Map.of()).read(), is(nullValue()));
+            props.remove("gitHubRepo");
+            props.remove("unrelated");
+            new Handoff(repo, head, new Properties(), Map.of()).write(props);
+            assertThat(new Handoff(repo, head, new Properties(), Map.of()).read(), is(props));
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IdCollisionScannerTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void synthetic() throws Exception {
+        File objects = new File(dir, "objects");
+        File pack = new File(objects, "pack");
+        pack.mkdirs();
+        idx(new File(pack, "pack-1.idx"),
+            "0000000000001111111111111111111111111111",
+            "123456789abc0000000000000000000000000000",
+            "123456789abd0000000000000000000000000000",
+            "ffffffffffff0000000000000000000000000000");
+        idx(new File(pack, "pack-2.idx"),
+            "123456789abc0000000000000000000000000000", // same object in another pack
+            "123456789abd0000000000000000000000000001",
+            "fedcba9876540000000000000000000000000000");
+        File loose = new File(objects, "ff");
+        loose.mkdirs();
+        new File(loose, "ffffffffff1111111111111111111111111111").createNewFile();
+        new File(loose, "tmp_obj_123").createNewFile();
+        assertThat(IdCollisionScanner.scan(objects), is(List.of(
+            ObjectId.fromString("123456789abd0000000000000000000000000000"),
+            ObjectId.fromString("123456789abd0000000000000000000000000001"),
+            ObjectId.fromString("ffffffffffff0000000000000000000000000000"),
+            ObjectId.fromString("ffffffffffff1111111111111111111111111111"))));
+    }
+
+    @Test
+    public void real() throws Exception {
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            for (int i = 0; i < 10; i++) {
+                git.commit().setAllowEmpty(true).setMessage("#" + i).call();
+            }
+            StoredConfig config = git.getRepository().getConfig();
+            config.setBoolean("pack", null, "buildBitmaps", false);
+            config.save();
+            git.gc().call();
+            git.commit().setAllowEmpty(true).setMessage("loose").call();
+            assertThat(IdCollisionScanner.scan(new File(git.getRepository().getDirectory(), "objects")), empty());
+        }
+    }
+
+    @Test
+    public void corrupt() throws Exception {
+        File objects = new File(dir, "objects");
+        File pack = new File(objects, "pack");
+        pack.mkdirs();
+        File idx = new File(pack, "pack-1.idx");
+        idx(idx, "123456789abc0000000000000000000000000000", "ffffffffffff0000000000000000000000000000");
+        byte[] whole = Files.readAllBytes(idx.toPath());
+        // half written, at various points:
+        for (int length : new int[] {0, 7, 8, 100, 8 + 1024, 8 + 1024 + 20, whole.length - 1}) {
+            Files.write(idx.toPath(), Arrays.copyOf(whole, length));
+            assertThrows(IOException.class, () -> IdCollisionScanner.scan(objects), "length " + length);
+        }
+        // not an index at all:
+        Files.writeString(idx.toPath(), "garbage", StandardCharsets.US_ASCII);
+        assertThrows(IOException.class, () -> IdCollisionScanner.scan(objects));
+        // a fanout table which does not add up:
+        byte[] bad = whole.clone();
+        bad[8 + 4 * 0x20 + 3] = 5;
+        Files.write(idx.toPath(), bad);
+        assertThrows(IOException.class, () -> IdCollisionScanner.scan(objects));
+        Files.write(idx.toPath(), whole);
+        assertThat(IdCollisionScanner.scan(objects), empty());
+    }
+
+    /** Writes a version 2 pack index listing the given (sorted) ids, with all else zeroed. */
+    private static void idx(File file, String... ids) throws Exception {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(0xff744f63);
+            out.writeInt(2);
+            for (int i = 0; i < 256; i++) {
+                int count = 0;
+                for (String id : ids) {
+                    if (Integer.parseInt(id.substring(0, 2), 16) <= i) {
+                        count++;
+                    }
+                }
+                out.writeInt(count);
+            }
+            byte[] raw = new byte[20];
+            for (String id : ids) {
+                ObjectId.fromString(id).copyRawTo(raw, 0);
+                out.write(raw);
+            }
+            out.write(new byte[ids.length * (4 + 4) + 2 * 20]);
+        }
+    }
+
+}
@@ -24,16 +24,42 @@
 
 package io.jenkins.tools.incrementals.git_changelist_maven_extension;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Properties;
+import org.apache.maven.MavenExecutionException;
 import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.TreeFormatter;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class MainTest {
 
+    @TempDir
+    File dir;
+
     // https://maven.apache.org/pom.html#Version_Order_Specification
     private static final String[] PRERELEASE = {
         // From ComparableVersion.StringItem.QUALIFIERS:
@@ -55,6 +81,15 @@ public class MainTest {
         }
     }
 
+    @Test
+    public void tagScheme() {
+        // With -Dchangelist.scheme=tag the count restarts after each release, so ${revision} must have been bumped.
+        String[] ordered = {"1.6", "1.7-rc0." + Main.sanitize("852b473a2bcb"), "1.7-rc3." + Main.sanitize("ffffffffffff"), "1.7-rc10." + Main.sanitize("000000000000"), "1.7"};
+        for (int i = 1; i < ordered.length; i++) {
+            assertThat(ordered[i - 1] + " < " + ordered[i], new ComparableVersion(ordered[i - 1]).compareTo(new ComparableVersion(ordered[i])) < 0, is(true));
+        }
+    }
+
     @Test public void alphaBetaTrailing() {
         String hash = "852b473a2bcb";
         String sanitized = Main.sanitize(hash);
@@ -64,4 +99,94 @@ public class MainTest {
             assertThat(sanitized + " treated as a prerelease", canonical, not(containsString(prerelease)));
         }
     }
+
+    @Test
+    public void asyncDirt() throws Exception {
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            Files.writeString(new File(dir, "a.txt").toPath(), "one");
+            git.add().addFilepattern("a.txt").call();
+            git.commit().setMessage("init").call();
+        }
+        Files.writeString(new File(dir, "a.txt").toPath(), "two");
+        MavenExecutionException sync = assertThrows(MavenExecutionException.class, () -> new Main(log()).afterSessionStart(session(false, false)));
+        assertThat(sync.getMessage(), containsString("Make sure `git status -s` is empty"));
+        Main main = new Main(log());
+        MavenSession session = session(true, false);
+        main.afterSessionStart(session); // still running in the background
+        MavenExecutionException async = assertThrows(MavenExecutionException.class, () -> main.afterProjectsRead(session));
+        assertThat(async.getMessage(), is(sync.getMessage()));
+        for (boolean a : new boolean[] {false, true}) {
+            Main ignoring = new Main(log());
+            MavenSession s = session(a, true);
+            ignoring.afterSessionStart(s);
+            ignoring.afterProjectsRead(s);
+            assertThat("async=" + a, s.getRequest().getUserProperties().getProperty("changelist"), startsWith("-rc1."));
+        }
+    }
+
+    @Test
+    public void asyncClash() throws Exception {
+        ObjectId left, right;
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            Repository repo = git.getRepository();
+            try (ObjectInserter ins = repo.newObjectInserter()) {
+                ObjectId tree = ins.insert(new TreeFormatter());
+                ObjectId root = commit(ins, tree, "root");
+                left = commit(ins, tree, "left", root);
+                right = commit(ins, tree, "right", root);
+                ObjectId merge = commit(ins, tree, "merge", left, right);
+                ins.flush();
+                RefUpdate ru = repo.updateRef(Constants.HEAD);
+                ru.setNewObjectId(merge);
+                ru.update();
+            }
+        }
+        // Real clashes of twelve hex digits cannot be produced on demand, so pretend these siblings (both counted as 2) share one.
+        MavenExecutionException sync = assertThrows(MavenExecutionException.class, () -> clashing(left, right).afterSessionStart(session(false, false)));
+        assertThat(sync.getMessage(), containsString(" clashes with "));
+        Main main = clashing(left, right);
+        MavenSession session = session(true, false);
+        main.afterSessionStart(session);
+        MavenExecutionException async = assertThrows(MavenExecutionException.class, () -> main.afterProjectsRead(session));
+        assertThat(async.getMessage(), is(sync.getMessage()));
+    }
+
+    private static Main clashing(ObjectId a, ObjectId b) {
+        return new Main(log()) {
+            @Override List<ObjectId[]> findClashes(Repository repo, History history) {
+                return List.<ObjectId[]>of(new ObjectId[] {a, b});
+            }
+        };
+    }
+
+    @SuppressWarnings("deprecation")
+    private MavenSession session(boolean async, boolean ignoreDirt) {
+        Properties props = new Properties();
+        props.setProperty("set.changelist", "true");
+        if (async) {
+            props.setProperty("changelist.async", "true");
+        }
+        if (ignoreDirt) {
+            props.setProperty("ignore.dirt", "true");
+        }
+        MavenExecutionRequest request = new DefaultMavenExecutionRequest().setUserProperties(props);
+        request.setMultiModuleProjectDirectory(dir);
+        return new MavenSession(null, request, new DefaultMavenExecutionResult(), List.of());
+    }
+
+    private static Logger log() {
+        return new ConsoleLogger(Logger.LEVEL_WARN, "test");
+    }
+
+    private static ObjectId commit(ObjectInserter ins, ObjectId tree, String message, ObjectId... parents) throws Exception {
+        CommitBuilder cb = new CommitBuilder();
+        cb.setTreeId(tree);
+        cb.setParentIds(parents);
+        PersonIdent ident = new PersonIdent("dev", "dev@nowhere.net");
+        cb.setAuthor(ident);
+        cb.setCommitter(ident);
+        cb.setMessage(message);
+        return ins.insert(cb);
+    }
+
 }
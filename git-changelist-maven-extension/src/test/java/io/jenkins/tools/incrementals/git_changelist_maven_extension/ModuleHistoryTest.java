@@ -0,0 +1,91 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ModuleHistoryTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void modules() throws Exception {
+        try (Git git = Git.init().setDirectory(dir).setInitialBranch("main").call()) {
+            write("pom.xml", "0");
+            write("a/pom.xml", "0");
+            write("a/b/pom.xml", "0");
+            RevCommit init = commit(git, "init");
+            write("a/pom.xml", "1");
+            RevCommit a1 = commit(git, "a1");
+            write("a/b/pom.xml", "1");
+            RevCommit b1 = commit(git, "b1");
+            git.checkout().setCreateBranch(true).setName("side").setStartPoint(init).call();
+            write("c/pom.xml", "0");
+            RevCommit c1 = commit(git, "c1");
+            git.checkout().setName("main").call();
+            git.merge().include(c1).setMessage("merge").call();
+            RevCommit merge = git.log().setMaxCount(1).call().iterator().next();
+            assertThat(merge.getParentCount(), is(2));
+            write("pom.xml", "1");
+            RevCommit top = commit(git, "top");
+            Map<String, ModuleHistory.Result> results = ModuleHistory.compute(git.getRepository(), top, List.of("", "a", "a/b", "c", "d"));
+            check(results.get(""), 6, top); // the merge combines changes from both sides
+            check(results.get("a"), 3, b1);
+            check(results.get("a/b"), 2, b1);
+            check(results.get("c"), 1, c1);
+            check(results.get("d"), 0, null);
+            assertThat(ModuleHistory.compute(git.getRepository(), a1, List.of("a/b")).get("a/b").count, is(1));
+        }
+    }
+
+    private static void check(ModuleHistory.Result r, int count, ObjectId last) {
+        assertThat(r.count, is(count));
+        assertThat(r.last, is(last));
+    }
+
+    private void write(String path, String content) throws Exception {
+        File f = new File(dir, path);
+        f.getParentFile().mkdirs();
+        Files.writeString(f.toPath(), content);
+    }
+
+    private static RevCommit commit(Git git, String message) throws Exception {
+        git.add().addFilepattern(".").call();
+        return git.commit().setMessage(message).call();
+    }
+
+}
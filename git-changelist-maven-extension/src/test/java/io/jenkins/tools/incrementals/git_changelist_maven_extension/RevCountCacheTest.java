@@ -0,0 +1,183 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RevCountCacheTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void incremental() throws Exception {
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            Repository repo = git.getRepository();
+            ObjectId a, b, c, d;
+            try (ObjectInserter ins = repo.newObjectInserter()) {
+                ObjectId tree = ins.insert(new TreeFormatter());
+                a = commit(ins, tree, "a");
+                b = commit(ins, tree, "b", a);
+                c = commit(ins, tree, "c", b);
+                d = commit(ins, tree, "d", c);
+                ins.flush();
+            }
+            RevCountCache cache = RevCountCache.read(repo);
+            assertThat(cache.count(repo, d), is(-1));
+            cache.put(b, fullCount(repo, b));
+            assertThat(cache.count(repo, b), is(2));
+            assertThat(cache.count(repo, d), is(fullCount(repo, d)));
+            cache.save();
+            cache = RevCountCache.read(repo);
+            assertThat(cache.count(repo, c), is(fullCount(repo, c)));
+            assertThat(cache.count(repo, d), is(4));
+            // Only commits since the cached one are walked: an inflated cached count shows through.
+            cache.put(b, 100);
+            assertThat(cache.count(repo, d), is(102));
+            assertThat(cache.count(repo, a), is(-1));
+        }
+    }
+
+    @Test
+    public void mergeOfSideHistory() throws Exception {
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            Repository repo = git.getRepository();
+            ObjectId b, m, n;
+            try (ObjectInserter ins = repo.newObjectInserter()) {
+                ObjectId tree = ins.insert(new TreeFormatter());
+                ObjectId a = commit(ins, tree, "a");
+                b = commit(ins, tree, "b", a);
+                ObjectId s1 = commit(ins, tree, "s1", a);
+                ObjectId s2 = commit(ins, tree, "s2", s1);
+                ObjectId s3 = commit(ins, tree, "s3", s2);
+                m = commit(ins, tree, "m", b, s3);
+                n = commit(ins, tree, "n", m);
+                ins.flush();
+            }
+            RevCountCache cache = RevCountCache.empty(repo);
+            cache.put(b, fullCount(repo, b));
+            assertThat(cache.count(repo, m), is(6));
+            assertThat(cache.count(repo, m), is(fullCount(repo, m)));
+            assertThat(cache.count(repo, n), is(fullCount(repo, n)));
+            // Nor does it matter which parent was cached.
+            cache = RevCountCache.empty(repo);
+            cache.put(m, 6);
+            assertThat(cache.count(repo, n), is(7));
+        }
+    }
+
+    @Test
+    public void corrupt() throws Exception {
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            Repository repo = git.getRepository();
+            ObjectId a, b;
+            try (ObjectInserter ins = repo.newObjectInserter()) {
+                ObjectId tree = ins.insert(new TreeFormatter());
+                a = commit(ins, tree, "a");
+                b = commit(ins, tree, "b", a);
+                ins.flush();
+            }
+            File file = RevCountCache.location(repo, "revcounts");
+            file.getParentFile().mkdirs();
+            Files.writeString(file.toPath(), "garbage, though long enough to pass for a header");
+            assertThrows(IOException.class, () -> RevCountCache.read(repo));
+            assertRewritten(repo, b);
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(buf)) {
+                out.writeInt(0x52435443);
+                out.writeInt(99);
+                out.writeInt(0);
+                CRC32 crc = new CRC32();
+                crc.update(buf.toByteArray());
+                out.writeInt((int) crc.getValue());
+            }
+            Files.write(file.toPath(), buf.toByteArray());
+            IOException x = assertThrows(IOException.class, () -> RevCountCache.read(repo));
+            assertThat(x.getMessage().startsWith("Unrecognized format"), is(true));
+            assertRewritten(repo, b);
+            byte[] data = Files.readAllBytes(file.toPath());
+            Files.write(file.toPath(), Arrays.copyOf(data, data.length - 1));
+            assertThrows(IOException.class, () -> RevCountCache.read(repo));
+            assertRewritten(repo, b);
+        }
+    }
+
+    /**
+     * Counts as a build would, which should replace a cache it cannot read with a good one.
+     */
+    private static void assertRewritten(Repository repo, ObjectId head) throws Exception {
+        int count = fullCount(repo, head);
+        RevCountCache cache;
+        try {
+            cache = RevCountCache.read(repo);
+        } catch (IOException x) {
+            cache = RevCountCache.empty(repo);
+        }
+        assertThat(cache.count(repo, head), is(-1));
+        cache.put(head, count);
+        cache.save();
+        assertThat(RevCountCache.read(repo).count(repo, head), is(count));
+    }
+
+    private static int fullCount(Repository repo, ObjectId head) throws Exception {
+        try (History history = new History(repo, head, new ConsoleLogger(Logger.LEVEL_WARN, "test"))) {
+            return history.count();
+        }
+    }
+
+    private static ObjectId commit(ObjectInserter ins, ObjectId tree, String message, ObjectId... parents) throws Exception {
+        CommitBuilder cb = new CommitBuilder();
+        cb.setTreeId(tree);
+        cb.setParentIds(parents);
+        PersonIdent ident = new PersonIdent("dev", "dev@nowhere.net");
+        cb.setAuthor(ident);
+        cb.setCommitter(ident);
+        cb.setMessage(message);
+        return ins.insert(cb);
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class RevCounterTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void merges() throws Exception {
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            Repository repo = git.getRepository();
+            ObjectId a, b, d, m1, m2, e;
+            try (ObjectInserter ins = repo.newObjectInserter()) {
+                ObjectId tree = ins.insert(new TreeFormatter());
+                a = commit(ins, tree, "a");
+                b = commit(ins, tree, "b", a);
+                ObjectId c = commit(ins, tree, "c", a);
+                d = commit(ins, tree, "d", c);
+                m1 = commit(ins, tree, "m1", b, d);
+                m2 = commit(ins, tree, "m2", d, b); // criss-cross
+                e = commit(ins, tree, "e", m1, m2);
+                ins.flush();
+            }
+            Map<ObjectId, Integer> counts = counts(repo, null, e);
+            assertThat(counts.get(a), is(1));
+            assertThat(counts.get(b), is(2));
+            assertThat(counts.get(d), is(3));
+            assertThat(counts.get(m1), is(5));
+            assertThat(counts.get(m2), is(5));
+            assertThat(counts.get(e), is(7));
+            // Now put all but the tip into a commit-graph.
+            RefUpdate ru = repo.updateRef("refs/heads/graphed");
+            ru.setNewObjectId(m2);
+            ru.update();
+            StoredConfig config = repo.getConfig();
+            config.setBoolean("core", null, "commitGraph", true);
+            config.setBoolean("gc", null, "writeCommitGraph", true);
+            config.setBoolean("pack", null, "buildBitmaps", false);
+            config.save();
+            git.gc().call();
+            CommitGraph graph = CommitGraph.open(new File(repo.getDirectory(), "objects"));
+            assertThat(graph.size(), is(5));
+            assertThat(graph.find(e), is(-1));
+            assertThat(counts(repo, graph, e), is(counts));
+            assertThat(counts(repo, graph, m2).get(m2), is(5));
+        }
+    }
+
+    private static Map<ObjectId, Integer> counts(Repository repo, CommitGraph graph, ObjectId tip) throws Exception {
+        Map<ObjectId, Integer> counts = new HashMap<>();
+        try (RevCounter counter = new RevCounter(repo, graph)) {
+            counter.load(tip);
+            assertThat(counter.id(0), is(tip));
+            assertThat(counter.count(0), is(counter.size()));
+            for (int i = 0; i < counter.size(); i++) {
+                counts.put(counter.id(i), counter.count(i));
+            }
+        }
+        return counts;
+    }
+
+    private static ObjectId commit(ObjectInserter ins, ObjectId tree, String message, ObjectId... parents) throws Exception {
+        CommitBuilder cb = new CommitBuilder();
+        cb.setTreeId(tree);
+        cb.setParentIds(parents);
+        PersonIdent ident = new PersonIdent("dev", "dev@nowhere.net");
+        cb.setAuthor(ident);
+        cb.setCommitter(ident);
+        cb.setMessage(message);
+        return ins.insert(cb);
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.File;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TagDistanceTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void distances() throws Exception {
+        try (Git git = Git.init().setDirectory(dir).setInitialBranch("main").call()) {
+            RevCommit first = git.commit().setAllowEmpty(true).setMessage("first").call();
+            assertThat(TagDistance.describe(git.getRepository(), first, "*"), nullValue());
+            git.tag().setName("random").setObjectId(first).call();
+            RevCommit released = git.commit().setAllowEmpty(true).setMessage("release").call();
+            git.tag().setName("thing-1.0").setObjectId(released).setAnnotated(true).setMessage("1.0").call();
+            git.commit().setAllowEmpty(true).setMessage("next").call();
+            RevCommit head = git.commit().setAllowEmpty(true).setMessage("next").call();
+            TagDistance d = TagDistance.describe(git.getRepository(), head, "thing-*");
+            assertThat(d.tag, is("thing-1.0"));
+            assertThat(d.base, is(released));
+            assertThat(d.distance, is(2));
+            assertThat(d.clashing.isEmpty(), is(true));
+            assertThat(TagDistance.describe(git.getRepository(), released, "thing-*").distance, is(0));
+            assertThat(TagDistance.describe(git.getRepository(), head, "rand?m").distance, is(3));
+            assertThat(TagDistance.describe(git.getRepository(), head, "other-*"), nullValue());
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.git_changelist_maven_extension;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class WarmCacheTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void unshallow() throws Exception {
+        ObjectId head;
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            head = git.commit().setMessage("one").setAllowEmpty(true).setSign(false).call().getId();
+        }
+        File shallow = new File(dir, ".git/shallow");
+        Files.writeString(shallow.toPath(), head.name() + "\n", StandardCharsets.US_ASCII);
+        WarmCache.Entry entry = new WarmCache().get(dir);
+        entry.remember(head, 1, "2026-01-01T00:00:00Z");
+        assertThat(entry.matches(head), is(true));
+        // as by git fetch --unshallow, which leaves HEAD alone but makes the count from the shallow clone wrong:
+        Files.delete(shallow.toPath());
+        assertThat(entry.matches(head), is(false));
+        entry.remember(head, 5, "2026-01-01T00:00:00Z");
+        assertThat(entry.matches(head), is(true));
+        entry.repository().close();
+    }
+
+}
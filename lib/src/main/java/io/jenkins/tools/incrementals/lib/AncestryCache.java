@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.lib;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers whether commits were found to be ancestors of branch heads on GitHub.
+ * An answer for a given head and candidate never changes,
+ * whereas a branch may be force-pushed, so nothing is assumed once its head has moved.
+ * <p>The store is an {@link AppendOnlyLog} of lines {@code owner/repo head candidate +}
+ * (or {@code -} when not an ancestor), so concurrent processes may share it.
+ */
+public final class AncestryCache {
+
+    private final AppendOnlyLog log;
+    /** keys are {@code owner/repo head candidate} */
+    private final Map<String, Boolean> known = new HashMap<>();
+
+    public AncestryCache(File file) {
+        log = new AppendOnlyLog(file.toPath());
+    }
+
+    /**
+     * @param repo {@code owner/repo}
+     * @param head the full hash of the current head of a branch
+     * @param candidate the hash of a commit, abbreviated if taken from an incremental version, so that it is the same whether or not its POM was read
+     * @return whether the candidate is known to be an ancestor of the head, or null if unknown
+     */
+    synchronized @CheckForNull Boolean get(String repo, String head, String candidate) throws IOException {
+        String key = repo + ' ' + head + ' ' + candidate;
+        Boolean result = known.get(key);
+        if (result == null) {
+            log.readNew(this::parse);
+            result = known.get(key);
+        }
+        return result;
+    }
+
+    synchronized void put(String repo, String head, String candidate, boolean ancestor) throws IOException {
+        String line = repo + ' ' + head + ' ' + candidate + ' ' + (ancestor ? '+' : '-');
+        parse(line);
+        log.append(line);
+    }
+
+    private void parse(String line) {
+        String[] fields = line.split(" ");
+        if (fields.length != 4 || !fields[3].matches("[+-]")) {
+            return; // the remains of an interrupted append, or garbage
+        }
+        known.put(fields[0] + ' ' + fields[1] + ' ' + fields[2], fields[3].equals("+"));
+    }
+
+}
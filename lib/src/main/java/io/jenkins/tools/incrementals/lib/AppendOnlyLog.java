@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.lib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * A text file of lines which are only ever appended, shared safely between processes.
+ * Writers append under an exclusive file lock, and within this JVM (where file locks are per process) a monitor per file;
+ * readers only trust complete lines, and remember how far they got so as to pick up only lines added since.
+ */
+final class AppendOnlyLog {
+
+    /** one per file, since a second {@link FileChannel#lock} on it from this process would fail rather than wait */
+    private static final ConcurrentMap<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final Object lock;
+    /** how much of the file has been read */
+    private long offset;
+
+    AppendOnlyLog(Path file) {
+        this.file = file;
+        lock = LOCKS.computeIfAbsent(file.toAbsolutePath().normalize(), k -> new Object());
+    }
+
+    /**
+     * Passes each complete line added since the last call (or ever, the first time).
+     */
+    synchronized void readNew(Consumer<String> lines) throws IOException {
+        byte[] data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= offset) {
+                return;
+            }
+            ByteBuffer buf = ByteBuffer.allocate(Math.toIntExact(size - offset));
+            while (buf.hasRemaining() && channel.read(buf, offset + buf.position()) >= 0) {
+                // keep reading
+            }
+            data = buf.array();
+        } catch (NoSuchFileException x) {
+            return;
+        }
+        int start = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == '\n') {
+                lines.accept(new String(data, start, i - start, StandardCharsets.UTF_8));
+                start = i + 1;
+            }
+        }
+        offset += start;
+    }
+
+    /**
+     * @param line text without a newline
+     */
+    void append(String line) throws IOException {
+        line += '\n';
+        Files.createDirectories(file.getParent());
+        synchronized (lock) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                channel.lock(); // released on close
+                long size = channel.size();
+                if (size > 0) {
+                    // Finish any line left incomplete by a process which died while appending.
+                    ByteBuffer last = ByteBuffer.allocate(1);
+                    channel.read(last, size - 1);
+                    if (last.get(0) != '\n') {
+                        line = '\n' + line;
+                    }
+                }
+                ByteBuffer buf = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+                while (buf.hasRemaining()) {
+                    channel.write(buf, size + buf.position());
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.lib;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What has been learned about the history of one branch on GitHub during one run,
+ * from comparisons of candidates against its head, so as to rule out other candidates without asking.
+ * <p>A comparison lists the commits in the candidate but not the head (at least the first 250),
+ * none of which can be an ancestor of the head; that covers older builds from the same pull request.
+ * <p>A comparison also reveals how many commits are in the head:
+ * those it shares with the candidate, plus the ones it has beyond them.
+ * If the changelist in an incremental version is the number of commits in its history, as it is by default,
+ * no candidate with a larger changelist can be an ancestor of the head.
+ * Since that is not always the case (for example with {@code -Dchangelist.scheme=tag}),
+ * the count is only used once two comparisons agree on it;
+ * should a later one disagree, any search which relied on it (see {@link Reliance}) must be repeated without it.
+ * <p>Candidates may be evaluated concurrently, so access is synchronized.
+ */
+final class BranchHistory {
+
+    /** the full hash of the head, or null if it could not be resolved */
+    final @CheckForNull String head;
+    /** keys are candidate hashes, full or abbreviated */
+    private final Map<String, Boolean> answers = new HashMap<>();
+    /** full hashes of commits which are not ancestors of the head */
+    private final NavigableSet<String> outside = new TreeSet<>();
+    /** the number of commits in the head as implied by the first comparison, or -1 */
+    private int headCount = -1;
+    private boolean confirmed;
+    private boolean inconsistent;
+
+    BranchHistory(@CheckForNull String head) {
+        this.head = head;
+    }
+
+    /**
+     * @return the result of an earlier comparison, if any
+     */
+    synchronized @CheckForNull Boolean answer(String hash) {
+        return answers.get(hash);
+    }
+
+    /**
+     * @param hash a candidate’s hash, full or abbreviated
+     * @return true if the candidate was listed by a comparison as not being an ancestor of the head
+     */
+    synchronized boolean listedOutside(String hash) {
+        String match = outside.ceiling(hash);
+        return match != null && match.startsWith(hash);
+    }
+
+    /**
+     * @param hash a candidate’s hash, full or abbreviated
+     * @param changelist the candidate’s changelist, or -1 if not known
+     * @return true if the candidate cannot be an ancestor of the head, as long as changelists count commits
+     */
+    synchronized boolean beyondCount(String hash, int changelist) {
+        return confirmed && !inconsistent && changelist >= 0 && (changelist > headCount || changelist == headCount && !head.startsWith(hash));
+    }
+
+    /**
+     * Records the comparison of a candidate against the head.
+     * @param aheadBy the number of commits in the candidate but not the head
+     * @param behindBy the number of commits in the head but not the candidate
+     * @param ahead full hashes of (some of) the commits in the candidate but not the head
+     */
+    synchronized void record(String hash, int changelist, boolean ancestor, int aheadBy, int behindBy, Collection<String> ahead) {
+        answers.put(hash, ancestor);
+        outside.addAll(ahead);
+        if (changelist >= 0 && !inconsistent) {
+            int implied = changelist - aheadBy + behindBy;
+            if (headCount == -1) {
+                headCount = implied;
+            } else if (implied == headCount) {
+                confirmed = true;
+            } else {
+                inconsistent = true;
+            }
+        }
+    }
+
+    /**
+     * @return true if changelists turned out not to count commits, so answers from {@link #beyondCount} were unreliable
+     */
+    synchronized boolean countsInconsistent() {
+        return inconsistent;
+    }
+
+    /**
+     * The histories one search has relied on to rule out candidates.
+     * Searches may overlap and share histories, so each keeps its own record of which counts it trusted.
+     */
+    static final class Reliance {
+
+        private final Set<BranchHistory> counted = ConcurrentHashMap.newKeySet();
+
+        /**
+         * @param hash a candidate’s hash, full or abbreviated
+         * @param changelist the candidate’s changelist, or -1 if not known
+         * @return true if the candidate cannot be an ancestor of the head of {@code history}
+         */
+        boolean rulesOut(BranchHistory history, String hash, int changelist) {
+            if (history.listedOutside(hash)) {
+                return true;
+            }
+            if (history.beyondCount(hash, changelist)) {
+                counted.add(history);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return true if this search ruled out candidates by a count which turned out not to be reliable
+         */
+        boolean mustRepeat() {
+            for (BranchHistory history : counted) {
+                if (history.countsInconsistent()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+}
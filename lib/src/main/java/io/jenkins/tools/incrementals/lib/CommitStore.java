@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.lib;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers which commit each released artifact was built from, forever.
+ * Release repositories never change a published POM, so once its {@code <scm>} has been read there is no need to read it again.
+ * <p>The store is an {@link AppendOnlyLog} of lines {@code groupId:artifactId:version owner repo hash},
+ * or {@code groupId:artifactId:version -} for a release which is not incremental,
+ * so concurrent processes may share it.
+ */
+public final class CommitStore {
+
+    private static final String NOT_INCREMENTAL = "-";
+
+    private final AppendOnlyLog log;
+    /** values are null for releases which are not incremental */
+    private final Map<String, UpdateChecker.GitHubCommit> known = new HashMap<>();
+
+    public CommitStore(File file) {
+        log = new AppendOnlyLog(file.toPath());
+    }
+
+    /**
+     * @param gav {@code groupId:artifactId:version}
+     * @return true if {@link #get} knows the answer
+     */
+    synchronized boolean contains(String gav) throws IOException {
+        if (!known.containsKey(gav)) {
+            log.readNew(this::parse);
+        }
+        return known.containsKey(gav);
+    }
+
+    /**
+     * @return the commit, or null if not incremental or not known
+     */
+    synchronized @CheckForNull UpdateChecker.GitHubCommit get(String gav) {
+        return known.get(gav);
+    }
+
+    /**
+     * @param commit the commit the release was built from, or null if it is not incremental
+     */
+    synchronized void put(String gav, @CheckForNull UpdateChecker.GitHubCommit commit) throws IOException {
+        if (known.containsKey(gav)) {
+            return;
+        }
+        known.put(gav, commit);
+        log.append(gav + ' ' + (commit == null ? NOT_INCREMENTAL : commit.owner + ' ' + commit.repo + ' ' + commit.hash));
+    }
+
+    private void parse(String line) {
+        String[] fields = line.split(" ");
+        if (fields.length == 2 && fields[1].equals(NOT_INCREMENTAL)) {
+            known.putIfAbsent(fields[0], null);
+        } else if (fields.length == 4) {
+            known.putIfAbsent(fields[0], new UpdateChecker.GitHubCommit(fields[1], fields[2], fields[3]));
+        }
+        // otherwise the remains of an interrupted append, or garbage: ignore
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.jenkins.tools.incrementals.lib;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Downloads files from repositories over one shared, pooled HTTP connection per host where possible.
+ */
+public final class Fetcher {
+
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient client;
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+
+    public Fetcher() {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+    }
+
+    /**
+     * @param connectTimeout how long to wait to establish a connection
+     * @param readTimeout how long to wait for a response to start
+     */
+    public Fetcher(Duration connectTimeout, Duration readTimeout) {
+        client = HttpClient.newBuilder().
+            version(HttpClient.Version.HTTP_2).
+            followRedirects(HttpClient.Redirect.NORMAL).
+            connectTimeout(connectTimeout).
+            build();
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * @return how long one download may take in all, after which reading it fails
+     */
+    private Duration timeout() {
+        return connectTimeout.plus(readTimeout);
+    }
+
+    /**
+     * Opens a URL.
+     * Other than {@code http} and {@code https}, protocols are handled by {@link java.net.URL#openStream}.
+     * @return the body, uncompressed
+     * @throws FileNotFoundException if the server says there is no such file
+     */
+    public InputStream open(String url) throws IOException {
+        Response response = open(url, null, null);
+        if (response.body == null) {
+            throw new IOException("Unexpected 304 from " + url);
+        }
+        return response.body;
+    }
+
+    /**
+     * Opens a URL unless it is unchanged since a previous download.
+     * @param etag the {@code ETag} from a previous download, if any
+     * @param lastModified the {@code Last-Modified} from a previous download, if any
+     * @return a response whose {@link Response#body} is null if the server replied {@code 304 Not Modified}
+     * @throws FileNotFoundException if the server says there is no such file
+     */
+    Response open(String url, @CheckForNull String etag, @CheckForNull String lastModified) throws IOException {
+        URI uri = URI.create(url);
+        if (!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme())) {
+            return new Response(uri.toURL().openStream(), null, null);
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).
+            timeout(readTimeout).
+            header("Accept-Encoding", "gzip").
+            GET();
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            request.header("If-Modified-Since", lastModified);
+        }
+        long start = System.nanoTime();
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException x) {
+            Thread.currentThread().interrupt();
+            throw (IOException) new InterruptedIOException("Interrupted fetching " + url).initCause(x);
+        }
+        int status = response.statusCode();
+        String newETag = response.headers().firstValue("ETag").orElse(null);
+        String newLastModified = response.headers().firstValue("Last-Modified").orElse(null);
+        if (status == 200) {
+            InputStream body = response.body();
+            // The request timeout only covers the headers, so hold the body to what remains of the overall timeout.
+            body = new Deadline(body, url, timeout().minusNanos(System.nanoTime() - start));
+            if (response.headers().firstValue("Content-Encoding").orElse("").equalsIgnoreCase("gzip")) {
+                body = new GZIPInputStream(body);
+            }
+            return new Response(body, newETag, newLastModified);
+        }
+        response.body().close();
+        if (status == 304 && (etag != null || lastModified != null)) {
+            return new Response(null, newETag, newLastModified);
+        }
+        if (status == 404 || status == 410) {
+            throw new FileNotFoundException(url);
+        }
+        throw new IOException("Got HTTP " + status + " from " + url);
+    }
+
+    /**
+     * Fails reads once a download has taken too long, closing the body to wake one which is blocked at the time.
+     */
+    private static final class Deadline extends FilterInputStream {
+
+        private final String url;
+        private final CompletableFuture<Void> timer;
+        private volatile boolean expired;
+
+        Deadline(InputStream in, String url, Duration remaining) {
+            super(in);
+            this.url = url;
+            timer = CompletableFuture.runAsync(this::expire, CompletableFuture.delayedExecutor(Math.max(0, remaining.toNanos()), TimeUnit.NANOSECONDS));
+        }
+
+        private void expire() {
+            expired = true;
+            try {
+                in.close();
+            } catch (IOException x) {
+                // already failed, or finished
+            }
+        }
+
+        @Override public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override public int read(byte[] b, int off, int len) throws IOException {
+            if (expired) {
+                throw new HttpTimeoutException("Timed out reading " + url);
+            }
+            try {
+                return in.read(b, off, len);
+            } catch (IOException x) {
+                if (expired) {
+                    throw (IOException) new HttpTimeoutException("Timed out reading " + url).initCause(x);
+                }
+                throw x;
+            }
+        }
+
+        @Override public long skip(long n) throws IOException {
+            return n <= 0 ? 0 : Math.max(0, read(new byte[(int) Math.min(n, 8192)]));
+        }
+
+        /**
+         * Also cancels the timer, so that a finished download neither stays reachable from it nor is closed again when it fires.
+         */
+        @Override public void close() throws IOException {
+            timer.cancel(false);
+            super.close();
+        }
+
+    }
+
+    static final class Response {
+        /** the uncompressed body, or null if not modified */
+        final @CheckForNull InputStream body;
+        final @CheckForNull String etag;
+        final @CheckForNull String lastModified;
+        Response(@CheckForNull InputStream body, @CheckForNull String etag, @CheckForNull String lastModified) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.lib;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Keeps the versions listed in {@code maven-metadata.xml} files on disk between runs.
+ * Entries younger than the TTL are used as is;
+ * older ones are revalidated with {@code If-None-Match} and {@code If-Modified-Since},
+ * so an unchanged file costs a {@code 304} rather than a full download.
+ * Each entry is a small properties file replaced atomically, so concurrent processes may share a directory.
+ */
+public final class MetadataCache {
+
+    private final Path dir;
+    private final Duration ttl;
+    private final boolean refresh;
+
+    /**
+     * @param dir a directory to keep entries in, created as needed
+     * @param ttl how long an entry may be used without asking the server; zero to always revalidate
+     * @param refresh if true, ignore existing entries and download everything again
+     */
+    public MetadataCache(File dir, Duration ttl, boolean refresh) {
+        this.dir = dir.toPath();
+        this.ttl = ttl;
+        this.refresh = refresh;
+    }
+
+    /**
+     * Looks up the versions of an artifact in one repository.
+     * @param repo the repository URL, ending in a slash
+     * @throws FileNotFoundException if the repository does not define the artifact
+     */
+    List<String> versions(String repo, String groupId, String artifactId, Fetcher fetcher) throws Exception {
+        String url = repo + groupId.replace('.', '/') + '/' + artifactId + "/maven-metadata.xml";
+        Path file = dir.resolve(fileName(repo + ' ' + groupId + ':' + artifactId));
+        Properties entry = refresh ? null : read(file, url);
+        long now = System.currentTimeMillis();
+        if (entry != null && now - Long.parseLong(entry.getProperty("checked")) < ttl.toMillis()) {
+            return split(entry.getProperty("versions"));
+        }
+        Fetcher.Response response;
+        try {
+            response = fetcher.open(url, entry != null ? entry.getProperty("etag") : null, entry != null ? entry.getProperty("lastModified") : null);
+        } catch (FileNotFoundException x) {
+            Files.deleteIfExists(file);
+            throw x;
+        }
+        List<String> versions;
+        if (response.body == null) {
+            versions = split(entry.getProperty("versions"));
+        } else {
+            try (InputStream is = response.body) {
+                versions = UpdateChecker.parseVersions(is, url);
+            }
+            entry = new Properties();
+            entry.setProperty("url", url);
+            entry.setProperty("versions", String.join(" ", versions));
+        }
+        // A 304 may carry fresher validators; otherwise keep the old ones.
+        if (response.etag != null) {
+            entry.setProperty("etag", response.etag);
+        }
+        if (response.lastModified != null) {
+            entry.setProperty("lastModified", response.lastModified);
+        }
+        entry.setProperty("checked", Long.toString(now));
+        write(file, entry);
+        return versions;
+    }
+
+    /**
+     * @return the entry, or null if missing, corrupt, or (improbably) for a different URL
+     */
+    private static @CheckForNull Properties read(Path file, String url) {
+        Properties entry = new Properties();
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            entry.load(r);
+        } catch (IOException | IllegalArgumentException x) {
+            return null;
+        }
+        if (!url.equals(entry.getProperty("url")) || entry.getProperty("versions") == null) {
+            return null;
+        }
+        try {
+            Long.parseLong(entry.getProperty("checked"));
+        } catch (NumberFormatException x) {
+            return null;
+        }
+        return entry;
+    }
+
+    private void write(Path file, Properties entry) throws IOException {
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                entry.store(w, null);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static List<String> split(String versions) {
+        return versions.isEmpty() ? List.of() : Arrays.asList(versions.split(" "));
+    }
+
+    /**
+     * @return a file name derived from a key of arbitrary length and characters
+     */
+    static String fileName(String key) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8))) + ".properties";
+        } catch (NoSuchAlgorithmException x) {
+            throw new AssertionError(x);
+        }
+    }
+
+}
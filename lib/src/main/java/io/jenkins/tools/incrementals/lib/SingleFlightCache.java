@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.lib;
+
+import java.io.InterruptedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A bounded cache safe for concurrent use, in which concurrent requests for the same key share one computation.
+ * Entries are evicted least recently used first.
+ * Failures are passed to everyone waiting at the time but not retained, so a later request tries again;
+ * if the computing thread was interrupted, though, its failure says nothing about the key, so those waiting try again themselves.
+ * Null values are allowed.
+ */
+final class SingleFlightCache<K, V> {
+
+    private final Map<K, CompletableFuture<V>> entries;
+
+    SingleFlightCache(int maximumSize) {
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<K, CompletableFuture<V>> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Gets a value, computing it in this thread unless it is already known or being computed.
+     * @param hit called if the value was known or being computed elsewhere
+     */
+    V get(K key, Callable<V> compute, Runnable hit) throws Exception {
+        boolean counted = false;
+        while (true) {
+            CompletableFuture<V> future;
+            boolean owner = false;
+            synchronized (entries) {
+                future = entries.get(key);
+                if (future == null) {
+                    future = new CompletableFuture<>();
+                    entries.put(key, future);
+                    owner = true;
+                }
+            }
+            if (!owner) {
+                if (!counted) {
+                    hit.run();
+                    counted = true;
+                }
+                try {
+                    return future.get();
+                } catch (ExecutionException x) {
+                    Throwable cause = x.getCause();
+                    if (cause instanceof Abandoned) {
+                        continue;
+                    }
+                    throw cause instanceof Exception ? (Exception) cause : x;
+                }
+            }
+            try {
+                V value = compute.call();
+                future.complete(value);
+                return value;
+            } catch (Exception | Error x) {
+                synchronized (entries) {
+                    entries.remove(key, future);
+                }
+                boolean interrupted = x instanceof InterruptedException || x instanceof InterruptedIOException || Thread.currentThread().isInterrupted();
+                future.completeExceptionally(interrupted ? new Abandoned() : x);
+                throw x;
+            }
+        }
+    }
+
+    /**
+     * Tells those waiting that the computation was given up rather than failed.
+     */
+    private static final class Abandoned extends Exception {
+        private static final long serialVersionUID = 1L;
+        Abandoned() {
+            super(null, null, false, false);
+        }
+    }
+
+    V get(K key, Callable<V> compute) throws Exception {
+        return get(key, compute, () -> {});
+    }
+
+}
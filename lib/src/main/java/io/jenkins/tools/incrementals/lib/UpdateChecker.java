@@ -26,22 +26,34 @@ package io.jenkins.tools.incrementals.lib;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.apache.maven.artifact.versioning.ComparableVersion;
 import org.kohsuke.github.GHCompare;
+import org.kohsuke.github.GHRepository;
 import org.kohsuke.github.GitHub;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 
 /**
  * Looks for updates (incremental or otherwise) to a specific artifact.
@@ -51,13 +63,81 @@ public final class UpdateChecker {
     private final Log log;
     private final List<String> repos;
     /** keys are {@code groupId:artifactId:currentVersion:branch} */
-    private final Map<String, VersionAndRepo> cache = new HashMap<>();
+    private final SingleFlightCache<String, VersionAndRepo> cache = new SingleFlightCache<>(4096);
 
-    private final Map<String, String> groupIdCache = new HashMap<>();
+    private final SingleFlightCache<String, String> groupIdCache = new SingleFlightCache<>(4096);
+
+    /** keys are {@code maven-metadata.xml} URLs */
+    private final SingleFlightCache<String, List<String>> versionsCache = new SingleFlightCache<>(1024);
+
+    /** Creating a factory involves a service lookup, so do it once; it is only used to create readers. */
+    private static final XMLInputFactory XML_INPUT_FACTORY;
+
+    static {
+        XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final Fetcher fetcher;
+    private final @CheckForNull MetadataCache metadataCache;
+    private final @CheckForNull CommitStore commitStore;
+    private final @CheckForNull AncestryCache ancestryCache;
+
+    /** how many candidates to evaluate at once */
+    private final int parallelism;
+    /** runs queries from {@link #findAll} and candidate evaluations */
+    private final ExecutorService executor = Threads.newExecutor("UpdateChecker");
+    /** set while a query in {@link #findAll} runs, to keep its messages together */
+    private final ThreadLocal<List<String>> buffer = new ThreadLocal<>();
+
+    private GitHub gitHub;
+    /** keys are {@code owner/repo} */
+    private final SingleFlightCache<String, GHRepository> gitHubRepositories = new SingleFlightCache<>(1024);
+    /** keys are {@code owner/repo branch} */
+    private final SingleFlightCache<String, BranchHistory> branches = new SingleFlightCache<>(1024);
+    /**
+     * keys are {@code groupId:artifactId branch};
+     * values are any commit read from a POM whose version named it and which names the repository the branch is looked up in
+     */
+    private final Map<String, GitHubCommit> scmCoordinates = new ConcurrentHashMap<>();
+
+    /**
+     * for example {@code 1.23-rc1234.a_bc123def456}, capturing the changelist and the abbreviated hash,
+     * in which {@code _} follows every {@code a} or {@code b} so Maven does not read them as alpha or beta qualifiers
+     */
+    private static final Pattern INCREMENTAL_VERSION = Pattern.compile("(?:.+-)?rc([0-9]+)[.]([0-9a-f_]+)");
+
+    public static final int DEFAULT_PARALLELISM = 4;
 
     public UpdateChecker(Log log, List<String> repos) {
-        this.log = log;
+        this(log, repos, new Fetcher(), null, null, null, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * @param metadataCache if not null, used to avoid downloading unchanged {@code maven-metadata.xml}
+     * @param commitStore if not null, used to avoid reading the POM of any release more than once
+     * @param ancestryCache if not null, used to avoid asking GitHub about the same commits again
+     * @param parallelism how many candidates of one artifact may be evaluated at once; 1 to go strictly one by one
+     */
+    public UpdateChecker(Log log, List<String> repos, Fetcher fetcher, @CheckForNull MetadataCache metadataCache, @CheckForNull CommitStore commitStore, @CheckForNull AncestryCache ancestryCache, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.log = message -> {
+            List<String> messages = buffer.get();
+            if (messages != null) {
+                messages.add(message);
+            } else {
+                log.info(message);
+            }
+        };
         this.repos = repos;
+        this.fetcher = fetcher;
+        this.metadataCache = metadataCache;
+        this.commitStore = commitStore;
+        this.ancestryCache = ancestryCache;
+        this.parallelism = parallelism;
     }
 
     @FunctionalInterface
@@ -99,25 +179,108 @@ public final class UpdateChecker {
 
     public @CheckForNull String findGroupId(String artifactId) throws IOException, InterruptedException {
         String cacheKey = artifactId;
-        if (groupIdCache.containsKey(cacheKey)) {
-            log.info("Group ID Cache hit on artifact ID: " + artifactId);
-            return groupIdCache.get(cacheKey);
+        try {
+            return groupIdCache.get(cacheKey, () -> {
+                //TODO: implement to support non-Incremental formats
+                // Needs to load UC JSON and query it like https://github.com/jenkinsci/docker/pull/668
+                return null;
+            }, () -> log.info("Group ID Cache hit on artifact ID: " + artifactId));
+        } catch (IOException | InterruptedException | RuntimeException x) {
+            throw x;
+        } catch (Exception x) {
+            throw new IOException(x);
         }
-
-        //TODO: implement to support non-Incremental formats
-        // Needs to load UC JSON and query it like https://github.com/jenkinsci/docker/pull/668
-        return null;
     }
 
     public @CheckForNull VersionAndRepo find(String groupId, String artifactId, String currentVersion, String branch) throws Exception {
         String cacheKey = groupId + ':' + artifactId + ':' + currentVersion + ':' + branch;
-        if (cache.containsKey(cacheKey)) {
-            log.info("Cache hit on updates to " + groupId + ":" + artifactId + ":" + currentVersion + " within " + branch);
-            return cache.get(cacheKey);
+        return cache.get(cacheKey, () -> doFind(groupId, artifactId, currentVersion, branch),
+            () -> log.info("Cache hit on updates to " + groupId + ":" + artifactId + ":" + currentVersion + " within " + branch));
+    }
+
+    /**
+     * Arguments to {@link #find}.
+     */
+    public static final class Query {
+        public final String groupId;
+        public final String artifactId;
+        public final String currentVersion;
+        public final String branch;
+        public Query(String groupId, String artifactId, String currentVersion, String branch) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.currentVersion = currentVersion;
+            this.branch = branch;
+        }
+        @Override public String toString() {
+            return groupId + ':' + artifactId + ':' + currentVersion + " within " + branch;
+        }
+    }
+
+    /**
+     * Outcome of one {@link Query}.
+     */
+    public static final class Result {
+        public final Query query;
+        /** what {@link #find} returned, if it did not fail */
+        public final @CheckForNull VersionAndRepo update;
+        /** what {@link #find} threw, if anything */
+        public final @CheckForNull Exception error;
+        Result(Query query, @CheckForNull VersionAndRepo update, @CheckForNull Exception error) {
+            this.query = query;
+            this.update = update;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Runs several {@link #find} queries at once.
+     * Messages from each query are logged together, in order.
+     * @param concurrency how many queries may run at once
+     * @return one result per query, in the same order; a failed query does not affect the others
+     */
+    public List<Result> findAll(List<Query> queries, int concurrency) throws InterruptedException {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be positive: " + concurrency);
+        }
+        Semaphore permits = new Semaphore(concurrency);
+        List<Future<VersionAndRepo>> futures = new ArrayList<>();
+        List<List<String>> messages = new ArrayList<>();
+        try {
+            for (Query query : queries) {
+                permits.acquire();
+                List<String> queryMessages = new ArrayList<>();
+                messages.add(queryMessages);
+                futures.add(executor.submit(() -> {
+                    buffer.set(queryMessages);
+                    try {
+                        return find(query.groupId, query.artifactId, query.currentVersion, query.branch);
+                    } finally {
+                        buffer.remove();
+                        permits.release();
+                    }
+                }));
+            }
+            List<Result> results = new ArrayList<>();
+            for (int i = 0; i < queries.size(); i++) {
+                Result result;
+                try {
+                    result = new Result(queries.get(i), futures.get(i).get(), null);
+                } catch (ExecutionException x) {
+                    Throwable cause = x.getCause();
+                    result = new Result(queries.get(i), null, cause instanceof Exception ? (Exception) cause : x);
+                }
+                for (String message : messages.get(i)) {
+                    log.info(message);
+                }
+                results.add(result);
+            }
+            return results;
+        } finally {
+            for (Future<?> f : futures) {
+                f.cancel(true);
+            }
         }
-        VersionAndRepo result = doFind(groupId, artifactId, currentVersion, branch);
-        cache.put(cacheKey, result);
-        return result;
     }
 
     private @CheckForNull VersionAndRepo doFind(String groupId, String artifactId, String currentVersion, String branch) throws Exception {
@@ -129,64 +292,285 @@ public final class UpdateChecker {
             return null;
         }
         log.info("Found " + candidates.size() + " candidates from " + candidates.first() + " down to " + candidates.last());
-        for (VersionAndRepo candidate : candidates) {
-            if (candidate.version.compareTo(currentV) <= 0) {
-                log.info("Stopping search at " + candidate + " since it is no newer than " + currentV);
-                return null;
-            }
-            log.info("Considering " + candidate);
-            GitHubCommit ghc = loadGitHubCommit(candidate);
-            if (ghc != null) {
-                log.info("Mapped to: " + ghc);
-                if (isAncestor(ghc, branch)) {
-                    log.info("Seems to be within " + branch + ", so accepting");
-                    return candidate;
-                } else {
-                    log.info("Does not seem to be within " + branch);
+        VersionAndRepo[] sorted = candidates.toArray(new VersionAndRepo[0]);
+        BranchHistory.Reliance reliance = new BranchHistory.Reliance();
+        VersionAndRepo result = search(sorted, currentV, branch, reliance);
+        if (reliance.mustRepeat()) {
+            log.info("Changelists do not seem to count commits after all, so searching again");
+            return search(sorted, currentV, branch, new BranchHistory.Reliance());
+        }
+        return result;
+    }
+
+    /**
+     * Goes through candidates newest first, accepting the first within the branch.
+     * Up to {@link #parallelism} candidates are evaluated at once, ahead of the one being decided;
+     * their outcomes (and log messages) are taken in order, and whatever is outstanding is cancelled
+     * once a candidate is accepted or the search reaches the current version.
+     * After the first rejection, a candidate halfway down the rest is probed,
+     * which together with the first tells how far the branch extends (see {@link BranchHistory});
+     * candidates beyond that, or on diverging histories already seen, are then ruled out without asking GitHub.
+     * @param reliance records which counts this search relied on
+     */
+    private @CheckForNull VersionAndRepo search(VersionAndRepo[] candidates, ComparableVersion currentV, String branch, BranchHistory.Reliance reliance) throws Exception {
+        int newer = 0;
+        while (newer < candidates.length && candidates[newer].version.compareTo(currentV) > 0) {
+            newer++;
+        }
+        int end = newer;
+        Deque<Future<Evaluation>> pending = new ArrayDeque<>();
+        Future<List<String>> probe = null;
+        boolean probeLogged = false;
+        int next = 0;
+        try {
+            for (int i = 0; i < end; i++) {
+                while (next < end && next - i < parallelism) {
+                    VersionAndRepo candidate = candidates[next++];
+                    pending.add(submit(() -> evaluate(candidate, branch, reliance)));
                 }
-            } else {
-                log.info("Does not seem to be an incremental release, so accepting");
-                // TODO may still be useful to select MRP versions targeted to an origin branch.
-                // (For example, select the latest backport from a stable branch rather than trunk.)
-                // The problem is that we cannot then guarantee that the POM has been flattened
-                // (this is only guaranteed for repositories which *may* produce incrementals),
-                // and loadGitHubCommit will not work for nonflattened POMs from reactor submodules:
-                // it would have to be made more complicated to resolve the parent POM(s),
-                // or we would need to switch the implementation to use Maven/Aether resolution APIs.
-                return candidate;
+                Evaluation evaluation;
+                try {
+                    evaluation = pending.remove().get();
+                } catch (ExecutionException x) {
+                    Throwable cause = x.getCause();
+                    throw cause instanceof Exception ? (Exception) cause : x;
+                }
+                for (String message : evaluation.messages) {
+                    log.info(message);
+                }
+                if (probe != null && !probeLogged && probe.isDone()) {
+                    logProbe(probe);
+                    probeLogged = true;
+                }
+                if (evaluation.accepted) {
+                    return candidates[i];
+                }
+                if (probe == null) {
+                    int from = next;
+                    probe = submit(() -> probe(candidates, from, end, branch));
+                }
+            }
+        } finally {
+            for (Future<?> f : pending) {
+                f.cancel(true);
             }
+            if (probe != null) {
+                probe.cancel(true);
+            }
+        }
+        if (end < candidates.length) {
+            log.info("Stopping search at " + candidates[end] + " since it is no newer than " + currentV);
         }
         return null;
     }
 
+    private static final class Evaluation {
+        final List<String> messages = new ArrayList<>();
+        boolean accepted;
+    }
+
+    /**
+     * Decides whether to accept one candidate, collecting log messages to be printed in order.
+     */
+    private Evaluation evaluate(VersionAndRepo candidate, String branch, BranchHistory.Reliance reliance) throws Exception {
+        Evaluation evaluation = new Evaluation();
+        Log log = evaluation.messages::add;
+        log.info("Considering " + candidate);
+        GitHubCommit ghc = loadGitHubCommit(candidate, branch);
+        if (ghc != null) {
+            log.info("Mapped to: " + ghc);
+            if (isAncestor(candidate, ghc, branch, log, reliance)) {
+                log.info("Seems to be within " + branch + ", so accepting");
+                evaluation.accepted = true;
+            } else {
+                log.info("Does not seem to be within " + branch);
+            }
+        } else {
+            log.info("Does not seem to be an incremental release, so accepting");
+            // TODO may still be useful to select MRP versions targeted to an origin branch.
+            // (For example, select the latest backport from a stable branch rather than trunk.)
+            // The problem is that we cannot then guarantee that the POM has been flattened
+            // (this is only guaranteed for repositories which *may* produce incrementals),
+            // and loadGitHubCommit will not work for nonflattened POMs from reactor submodules:
+            // it would have to be made more complicated to resolve the parent POM(s),
+            // or we would need to switch the implementation to use Maven/Aether resolution APIs.
+            evaluation.accepted = true;
+        }
+        return evaluation;
+    }
+
+    /**
+     * Runs a task on {@link #executor}, or right away if {@link #parallelism} is 1.
+     */
+    private <T> Future<T> submit(Callable<T> task) {
+        if (parallelism > 1) {
+            return executor.submit(task);
+        }
+        FutureTask<T> f = new FutureTask<>(task);
+        f.run();
+        return f;
+    }
+
+    /**
+     * Compares the middle of the remaining incremental candidates against the branch,
+     * merely to learn about it; the answer is remembered for when the search gets there.
+     * @param from the first candidate not yet being evaluated
+     * @param end the first candidate no newer than the current version
+     * @return log messages, to be printed once the search notices the probe is done
+     */
+    private List<String> probe(VersionAndRepo[] candidates, int from, int end, String branch) throws Exception {
+        List<String> messages = new ArrayList<>();
+        Log log = messages::add;
+        int to = from;
+        while (to < end && changelist(candidates[to]) >= 0) {
+            to++;
+        }
+        if (to - from < 2) {
+            return messages; // would be considered next anyway
+        }
+        VersionAndRepo candidate = candidates[(from + to) / 2];
+        GitHubCommit ghc = loadGitHubCommit(candidate, branch);
+        if (ghc != null) {
+            log.info("Probing " + candidate + " to learn more about " + branch);
+            // Its answer is not used, so neither is whatever it relied on.
+            isAncestor(candidate, ghc, branch, log, new BranchHistory.Reliance());
+        }
+        return messages;
+    }
+
+    /**
+     * Prints the messages of a finished probe; a failed or cancelled one is simply ignored, as it only ever gives advice.
+     */
+    private void logProbe(Future<List<String>> probe) throws InterruptedException {
+        List<String> messages;
+        try {
+            messages = probe.get();
+        } catch (ExecutionException | CancellationException x) {
+            return;
+        }
+        for (String message : messages) {
+            log.info(message);
+        }
+    }
+
+    private static int changelist(VersionAndRepo vnr) {
+        return changelist(vnr.version.toString());
+    }
+
+    /**
+     * @return the number in {@code -rcNNN.}, or -1 if not an incremental version
+     */
+    static int changelist(String version) {
+        Matcher m = INCREMENTAL_VERSION.matcher(version);
+        return m.matches() ? Integer.parseInt(m.group(1)) : -1;
+    }
+
+    /**
+     * @return the abbreviated hash after {@code -rcNNN.} with any {@code _} removed, or null if not an incremental version
+     */
+    static @CheckForNull String abbreviatedHash(String version) {
+        Matcher m = INCREMENTAL_VERSION.matcher(version);
+        return m.matches() ? m.group(2).replace("_", "") : null;
+    }
+
     /**
      * Look for all known versions of a given artifact.
      * @return a possibly empty set of versions, sorted descending
      */
     private SortedSet<VersionAndRepo> loadVersions(String groupId, String artifactId) throws Exception {
         // TODO consider using official Aether APIs here (could make use of local cache)
-        SortedSet<VersionAndRepo> r = new TreeSet<>();
+        // Ask every repository at once; the fetcher holds each download to its own timeout, counted from when it starts,
+        // so one slow server costs no more than that, however long the request waited for a thread or for another caller.
+        List<Future<List<String>>> futures = new ArrayList<>();
         for (String repo : repos) {
-            String mavenMetadataURL = repo + groupId.replace('.', '/') + '/' + artifactId + "/maven-metadata.xml";
-            Document doc;
-            try {
-                doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(mavenMetadataURL);
-            } catch (FileNotFoundException x) {
-                continue; // not even defined in this repo, fine
+            futures.add(executor.submit(() -> loadVersions(repo, groupId, artifactId)));
+        }
+        SortedSet<VersionAndRepo> r = new TreeSet<>();
+        try {
+            // Merged in configured order, since where a version is in several repositories the first is the one to report.
+            for (int i = 0; i < repos.size(); i++) {
+                String repo = repos.get(i);
+                List<String> versions;
+                try {
+                    versions = futures.get(i).get();
+                } catch (ExecutionException x) {
+                    Throwable cause = x.getCause();
+                    if (cause instanceof FileNotFoundException) {
+                        continue; // not even defined in this repo, fine
+                    }
+                    throw cause instanceof Exception ? (Exception) cause : x;
+                }
+                for (String version : versions) {
+                    // Not bothering to exclude timestamped snapshots for now, since we are working with release repositories anyway.
+                    r.add(new VersionAndRepo(groupId, artifactId, new ComparableVersion(version), repo));
+                }
             }
-            Element versionsE = theElement(doc, "versions", mavenMetadataURL);
-            NodeList versionEs = versionsE.getElementsByTagName("version");
-            for (int i = 0; i < versionEs.getLength(); i++) {
-                // Not bothering to exclude timestamped snapshots for now, since we are working with release repositories anyway.
-                r.add(new VersionAndRepo(groupId, artifactId, new ComparableVersion(versionEs.item(i).getTextContent()), repo));
+        } finally {
+            for (Future<?> f : futures) {
+                f.cancel(true);
             }
         }
         return r;
     }
 
-    private static final class GitHubCommit {
+    private List<String> loadVersions(String repo, String groupId, String artifactId) throws Exception {
+        String mavenMetadataURL = repo + groupId.replace('.', '/') + '/' + artifactId + "/maven-metadata.xml";
+        return versionsCache.get(mavenMetadataURL, () -> {
+            if (metadataCache != null) {
+                return metadataCache.versions(repo, groupId, artifactId, fetcher);
+            }
+            try (InputStream is = fetcher.open(mavenMetadataURL)) {
+                return parseVersions(is, mavenMetadataURL);
+            }
+        });
+    }
+
+    /**
+     * Reads the contents of each {@code <version>} inside the single {@code <versions>} of {@code maven-metadata.xml}.
+     */
+    static List<String> parseVersions(InputStream is, String url) throws Exception {
+        XMLStreamReader xml = XML_INPUT_FACTORY.createXMLStreamReader(is);
+        try {
+            List<String> versions = new ArrayList<>();
+            int versionsElements = 0;
+            int depth = 0;
+            int versionsDepth = -1;
+            while (xml.hasNext()) {
+                switch (xml.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    if (versionsDepth >= 0 && depth == versionsDepth + 1 && xml.getLocalName().equals("version")) {
+                        versions.add(xml.getElementText());
+                        depth--; // now at its end
+                    } else if (xml.getLocalName().equals("versions")) {
+                        versionsElements++;
+                        versionsDepth = depth;
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (depth == versionsDepth) {
+                        versionsDepth = -1;
+                    }
+                    depth--;
+                    break;
+                default:
+                }
+            }
+            if (versionsElements != 1) {
+                throw new Exception("Could not find <versions> in " + url);
+            }
+            return versions;
+        } catch (XMLStreamException x) {
+            throw unwrap(x);
+        } finally {
+            xml.close();
+        }
+    }
+
+    static final class GitHubCommit {
         final String owner;
         final String repo;
+        /** full, or abbreviated when taken from a version */
         final String hash;
         GitHubCommit(String owner, String repo, String hash) {
             this.owner = owner;
@@ -198,25 +582,82 @@ public final class UpdateChecker {
         }
     }
 
+    /**
+     * Finds the commit a release was built from.
+     * An incremental version names its commit, so once one POM of an artifact has confirmed that
+     * and given the repository the branch is looked up in, other incremental versions need no POM at all.
+     * @param branch as passed to {@link #find}
+     */
+    @CheckForNull GitHubCommit loadGitHubCommit(VersionAndRepo vnr, String branch) throws Exception {
+        String key = vnr.groupId + ':' + vnr.artifactId + ' ' + branch;
+        String hash = abbreviatedHash(vnr.version.toString());
+        if (hash != null) {
+            GitHubCommit scm = scmCoordinates.get(key);
+            if (scm != null) {
+                return new GitHubCommit(scm.owner, scm.repo, hash);
+            }
+        }
+        GitHubCommit ghc = storedGitHubCommit(vnr);
+        if (hash != null && ghc != null && ghc.hash.startsWith(hash) && namesBranchRepository(ghc, branch)) {
+            scmCoordinates.put(key, ghc);
+        }
+        return ghc;
+    }
+
+    /**
+     * Checks whether a POM names the repository a branch is looked up in, and so may stand for other versions:
+     * that of the forker for {@code forker:branch}, else one which is not a fork,
+     * since a build of a pull request from a fork names the fork.
+     */
+    private boolean namesBranchRepository(GitHubCommit ghc, String branch) throws Exception {
+        int colon = branch.indexOf(':');
+        if (colon != -1) {
+            return ghc.owner.equals(branch.substring(0, colon));
+        }
+        try {
+            return !gitHubRepository(ghc.owner + '/' + ghc.repo).isFork();
+        } catch (FileNotFoundException x) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the commit from the POM, consulting {@link #commitStore} first.
+     */
+    private @CheckForNull GitHubCommit storedGitHubCommit(VersionAndRepo vnr) throws Exception {
+        if (commitStore == null) {
+            return readGitHubCommit(vnr);
+        }
+        String gav = vnr.groupId + ':' + vnr.artifactId + ':' + vnr.version;
+        if (commitStore.contains(gav)) {
+            return commitStore.get(gav);
+        }
+        GitHubCommit ghc = readGitHubCommit(vnr);
+        commitStore.put(gav, ghc);
+        return ghc;
+    }
+
     /**
      * Parses {@code /project/scm/url} and {@code /project/scm/tag} out of a POM, if mapped to a commit.
      */
-    private static @CheckForNull GitHubCommit loadGitHubCommit(VersionAndRepo vnr) throws Exception {
+    private @CheckForNull GitHubCommit readGitHubCommit(VersionAndRepo vnr) throws Exception {
         String pom = vnr.fullURL("pom");
-        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(pom);
-        NodeList scmEs = doc.getElementsByTagName("scm");
-        if (scmEs.getLength() != 1) {
+        String[] urlAndTag;
+        try (InputStream is = fetcher.open(pom)) {
+            urlAndTag = parseScm(is, pom);
+        }
+        if (urlAndTag == null) {
             return null;
         }
-        Element scmE = (Element) scmEs.item(0);
-        Element urlE = theElement(scmE, "url", pom);
-        String url = urlE.getTextContent();
+        String url = urlAndTag[0];
         Matcher m = Pattern.compile("https?://github[.]com/([^/]+)/([^/]+?)([.]git)?(/.*)?").matcher(url);
         if (!m.matches()) {
             throw new Exception("Unexpected /project/scm/url " + url + " in " + pom + "; expecting https://github.com/owner/repo format");
         }
-        Element tagE = theElement(scmE, "tag", pom);
-        String tag = tagE.getTextContent();
+        String tag = urlAndTag[1];
+        if (tag == null) {
+            throw new Exception("Could not find <tag> in " + pom);
+        }
         String groupId = m.group(1);
         String artifactId = m.group(2).replace("${project.artifactId}", vnr.artifactId);
         if (!tag.matches("[a-f0-9]{40}")) {
@@ -225,17 +666,129 @@ public final class UpdateChecker {
         return new GitHubCommit(groupId, artifactId, tag);
     }
 
+    /**
+     * Reads {@code /project/scm/url} and {@code /project/scm/tag}, stopping as soon as both have been seen.
+     * @return the URL and the tag (which may be null), or null if there is no {@code <scm>}
+     */
+    static @CheckForNull String[] parseScm(InputStream is, String pom) throws Exception {
+        XMLStreamReader xml = XML_INPUT_FACTORY.createXMLStreamReader(is);
+        try {
+            String url = null;
+            String tag = null;
+            boolean inScm = false;
+            int depth = 0;
+            while (xml.hasNext()) {
+                switch (xml.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    if (depth == 2 && xml.getLocalName().equals("scm")) {
+                        inScm = true;
+                    } else if (inScm && depth == 3 && xml.getLocalName().equals("url")) {
+                        url = xml.getElementText();
+                        depth--;
+                    } else if (inScm && depth == 3 && xml.getLocalName().equals("tag")) {
+                        tag = xml.getElementText();
+                        depth--;
+                    }
+                    if (url != null && tag != null) {
+                        return new String[] {url, tag};
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (inScm && depth == 2) {
+                        if (url == null) {
+                            throw new Exception("Could not find <url> in " + pom);
+                        }
+                        return new String[] {url, tag};
+                    }
+                    depth--;
+                    break;
+                default:
+                }
+            }
+            return null;
+        } catch (XMLStreamException x) {
+            throw unwrap(x);
+        } finally {
+            xml.close();
+        }
+    }
+
+    /**
+     * StAX reports a failure to read the underlying stream, such as a timeout, as a parse error; rethrow it as it was.
+     */
+    private static Exception unwrap(XMLStreamException x) {
+        Throwable nested = x.getNestedException();
+        return nested instanceof IOException ? (IOException) nested : x;
+    }
+
     /**
      * Checks whether a commit is an ancestor of a given branch head.
+     * The head is resolved once per repository and branch, and answers are kept in {@link #ancestryCache} if available.
+     * @param branch may be {@code master} or {@code forker:branch}
+     * @param reliance notes any history used to rule the candidate out
+     */
+    private boolean isAncestor(VersionAndRepo candidate, GitHubCommit ghc, String branch, Log log, BranchHistory.Reliance reliance) throws Exception {
+        String repo = ghc.owner + '/' + ghc.repo;
+        BranchHistory history = branchHistory(ghc, branch, log);
+        if (history.head == null) {
+            // Perhaps a fork with another name; let GitHub figure it out.
+            return isAncestorOf(ghc, branch);
+        }
+        // The same whether or not the POM was read:
+        String hash = abbreviatedHash(candidate.version.toString());
+        if (hash == null) {
+            hash = ghc.hash;
+        }
+        Boolean known = history.answer(hash);
+        if (known != null) {
+            return known;
+        }
+        int changelist = changelist(candidate);
+        if (reliance.rulesOut(history, hash, changelist)) {
+            log.info("Cannot be within " + branch + " judging by its history so far");
+            return false;
+        }
+        if (ancestryCache != null) {
+            known = ancestryCache.get(repo, history.head, hash);
+            if (known != null) {
+                log.info("Already known " + (known ? "" : "not ") + "to be within " + branch + " at " + history.head);
+                return known;
+            }
+        }
+        GHCompare compare;
+        try {
+            compare = gitHubRepository(repo).getCompare(history.head, ghc.hash);
+        } catch (FileNotFoundException x) {
+            return false;
+        }
+        GHCompare.Status status = compare.getStatus();
+        boolean ancestor = status == GHCompare.Status.identical || status == GHCompare.Status.behind;
+        List<String> ahead = new ArrayList<>();
+        GHCompare.Commit[] commits = compare.getCommits();
+        if (commits != null) {
+            for (GHCompare.Commit c : commits) {
+                ahead.add(c.getSHA1());
+            }
+        }
+        history.record(hash, changelist, ancestor, compare.getAheadBy(), compare.getBehindBy(), ahead);
+        if (ancestryCache != null) {
+            ancestryCache.put(repo, history.head, hash, ancestor);
+        }
+        return ancestor;
+    }
+
+    /**
+     * Checks whether a commit is an ancestor of another.
      * {@code curl -s -u … https://api.github.com/repos/<owner>/<repo>/compare/<branch>...<hash> | jq -r .status}
      * will return {@code identical} or {@code behind} if so, else {@code diverged} or {@code ahead}.
-     * @param branch may be {@code master} or {@code forker:branch}
+     * @param base a hash, or a branch name in the same format as {@code branch}
      * @see <a href="https://developer.github.com/v3/repos/commits/#compare-two-commits">Compare two commits</a>
      * @see <a href="https://stackoverflow.com/a/23970412/12916">Discussion</a>
      */
-    private static boolean isAncestor(GitHubCommit ghc, String branch) throws Exception {
+    private boolean isAncestorOf(GitHubCommit ghc, String base) throws Exception {
         try {
-            GHCompare.Status status = GitHub.connect().getRepository(ghc.owner + '/' + ghc.repo).getCompare(branch, ghc.hash).getStatus();
+            GHCompare.Status status = gitHubRepository(ghc.owner + '/' + ghc.repo).getCompare(base, ghc.hash).getStatus();
             return status == GHCompare.Status.identical || status == GHCompare.Status.behind;
         } catch (FileNotFoundException x) {
             // For example, that branch does not exist in this repository.
@@ -246,19 +799,43 @@ public final class UpdateChecker {
         // Currently https://developer.github.com/v4/object/commit/ does no better than this.
     }
 
-    private static Element theElement(Document doc, String tagName, String url) throws Exception {
-        return theElement(doc.getElementsByTagName(tagName), tagName, url);
+    /**
+     * Resolves the current head of a branch, once per run.
+     * Concurrent callers for the same branch share one request, made without holding any lock.
+     * @param log receives the head, if this caller is the one to resolve it
+     */
+    private BranchHistory branchHistory(GitHubCommit ghc, String branch, Log log) throws Exception {
+        String key = ghc.owner + '/' + ghc.repo + ' ' + branch;
+        return branches.get(key, () -> {
+            int colon = branch.indexOf(':');
+            String owner = colon == -1 ? ghc.owner : branch.substring(0, colon);
+            String name = branch.substring(colon + 1);
+            String head;
+            try {
+                head = gitHubRepository(owner + '/' + ghc.repo).getBranch(name).getSHA1();
+                log.info("Branch " + branch + " of " + owner + '/' + ghc.repo + " is at " + head);
+            } catch (FileNotFoundException x) {
+                head = null;
+            }
+            return new BranchHistory(head);
+        });
     }
 
-    private static Element theElement(Element parent, String tagName, String url) throws Exception {
-        return theElement(parent.getElementsByTagName(tagName), tagName, url);
+    /**
+     * Looks up a repository once per run; concurrent callers for the same one share one request.
+     */
+    private GHRepository gitHubRepository(String name) throws Exception {
+        return gitHubRepositories.get(name, () -> gitHub().getRepository(name));
     }
 
-    private static Element theElement(NodeList nl, String tagName, String url) throws Exception {
-        if (nl.getLength() != 1) {
-            throw new Exception("Could not find <" + tagName + "> in " + url);
+    /**
+     * Connecting only reads local configuration, so holding the lock here costs nothing.
+     */
+    private synchronized GitHub gitHub() throws IOException {
+        if (gitHub == null) {
+            gitHub = GitHub.connect();
         }
-        return (Element) nl.item(0);
+        return gitHub;
     }
 
     public static void main(String... argv) throws Exception {
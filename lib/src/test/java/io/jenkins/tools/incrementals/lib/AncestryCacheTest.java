@@ -0,0 +1,61 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.lib;
+
+import java.io.File;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class AncestryCacheTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void headMoves() throws Exception {
+        File file = new File(dir, "ancestry.log");
+        AncestryCache a = new AncestryCache(file);
+        assertThat(a.get("o/r", "h1", "c1"), is(nullValue()));
+        a.put("o/r", "h1", "c1", true);
+        a.put("o/r", "h1", "c2", false);
+        AncestryCache b = new AncestryCache(file);
+        assertThat(b.get("o/r", "h1", "c1"), is(true));
+        assertThat(b.get("o/r", "h1", "c2"), is(false));
+        // The branch moved, perhaps by a force-push, so everything needs to be checked again.
+        assertThat(b.get("o/r", "h2", "c1"), is(nullValue()));
+        assertThat(b.get("o/r", "h2", "c2"), is(nullValue()));
+        // Not for other repositories.
+        assertThat(b.get("o/other", "h1", "c1"), is(nullValue()));
+        b.put("o/r", "h2", "c1", false);
+        assertThat(a.get("o/r", "h2", "c1"), is(false));
+        assertThat(a.get("o/r", "h1", "c1"), is(true));
+    }
+
+}
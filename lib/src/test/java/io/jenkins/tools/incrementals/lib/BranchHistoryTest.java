@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.lib;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class BranchHistoryTest {
+
+    private static final String HEAD = "1000000000000000000000000000000000000000";
+    private static final String PR1 = "2100000000000000000000000000000000000000";
+    private static final String PR2 = "2200000000000000000000000000000000000000";
+
+    @Test
+    public void countsConfirmed() {
+        BranchHistory history = new BranchHistory(HEAD);
+        BranchHistory.Reliance reliance = new BranchHistory.Reliance();
+        // A pull request with two commits on top of the head (100 commits):
+        history.record(PR2.substring(0, 12), 102, false, 2, 0, List.of(PR1, PR2));
+        assertThat(history.answer(PR2.substring(0, 12)), is(false));
+        assertThat(history.answer(PR1.substring(0, 12)), is(nullValue()));
+        // Its other build is ruled out regardless of counts:
+        assertThat(reliance.rulesOut(history, PR1.substring(0, 12), 101), is(true));
+        // One comparison is not enough to trust counts:
+        assertThat(reliance.rulesOut(history, "333333333333", 150), is(false));
+        // A build from ten commits ago:
+        history.record("444444444444", 90, true, 0, 10, List.of());
+        assertThat(reliance.rulesOut(history, "333333333333", 150), is(true));
+        assertThat(reliance.rulesOut(history, "333333333333", 101), is(true));
+        assertThat(reliance.rulesOut(history, "333333333333", 100), is(true));
+        assertThat(reliance.rulesOut(history, HEAD.substring(0, 12), 100), is(false));
+        assertThat(reliance.rulesOut(history, "333333333333", 99), is(false));
+        assertThat(reliance.mustRepeat(), is(false));
+    }
+
+    @Test
+    public void countsInconsistent() {
+        BranchHistory history = new BranchHistory(HEAD);
+        BranchHistory.Reliance reliance = new BranchHistory.Reliance();
+        history.record("555555555555", 12, false, 2, 0, List.of());
+        history.record("666666666666", 5, true, 0, 5, List.of());
+        assertThat(reliance.rulesOut(history, "777777777777", 11), is(true));
+        // Evidently changelists are not commit counts:
+        history.record("888888888888", 3, true, 0, 20, List.of());
+        assertThat(reliance.rulesOut(history, "777777777777", 11), is(false));
+        assertThat(reliance.mustRepeat(), is(true));
+        assertThat(new BranchHistory.Reliance().mustRepeat(), is(false));
+    }
+
+    @Test
+    public void interleavedSearches() {
+        BranchHistory master = new BranchHistory(HEAD);
+        BranchHistory stable = new BranchHistory(PR1);
+        BranchHistory.Reliance first = new BranchHistory.Reliance();
+        BranchHistory.Reliance second = new BranchHistory.Reliance();
+        master.record("555555555555", 12, false, 2, 0, List.of());
+        master.record("666666666666", 5, true, 0, 5, List.of());
+        stable.record("999999999999", 40, true, 0, 0, List.of());
+        // The first search relies on the count of master:
+        assertThat(first.rulesOut(master, "777777777777", 11), is(true));
+        // The second only looks at another branch:
+        assertThat(second.rulesOut(stable, "aaaaaaaaaaaa", 30), is(false));
+        // which proves the count of master wrong:
+        master.record("888888888888", 3, true, 0, 20, List.of());
+        // The second search need not be repeated, and checking so does not affect the first:
+        assertThat(second.mustRepeat(), is(false));
+        assertThat(first.mustRepeat(), is(true));
+        assertThat(first.mustRepeat(), is(true));
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.lib;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class CommitStoreTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void shared() throws Exception {
+        File file = new File(dir, "sub/commits.log");
+        CommitStore a = new CommitStore(file);
+        CommitStore b = new CommitStore(file);
+        assertThat(a.contains("g:a:1.0"), is(false));
+        a.put("g:a:1.0", null);
+        a.put("g:a:1.1-rc2.abcdef012345", new UpdateChecker.GitHubCommit("owner", "repo", "abcdef0123456789abcdef0123456789abcdef01"));
+        assertThat(b.contains("g:a:1.0"), is(true));
+        assertThat(b.get("g:a:1.0"), is(nullValue()));
+        assertThat(b.contains("g:a:1.1-rc2.abcdef012345"), is(true));
+        assertThat(b.get("g:a:1.1-rc2.abcdef012345").toString(), is("https://github.com/owner/repo/commit/abcdef0123456789abcdef0123456789abcdef01"));
+        b.put("g:a:1.2", null);
+        assertThat(a.contains("g:a:1.2"), is(true));
+        assertThat(new CommitStore(file).contains("g:a:1.1-rc2.abcdef012345"), is(true));
+    }
+
+    @Test
+    public void concurrentWriters() throws Exception {
+        // As when several mojo executions in one build share a cache file.
+        File file = new File(dir, "commits.log");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch ready = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                CommitStore store = new CommitStore(new File(dir, "./commits.log"));
+                String prefix = "g:a" + t + ":";
+                futures.add(executor.submit(() -> {
+                    ready.await();
+                    for (int i = 0; i < 50; i++) {
+                        store.put(prefix + i, null);
+                    }
+                    return null;
+                }));
+            }
+            ready.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        CommitStore store = new CommitStore(file);
+        for (int t = 0; t < 8; t++) {
+            for (int i = 0; i < 50; i++) {
+                assertThat(store.contains("g:a" + t + ":" + i), is(true));
+            }
+        }
+        assertThat(Files.readAllLines(file.toPath()).size(), is(400));
+    }
+
+    @Test
+    public void tornLine() throws Exception {
+        File file = new File(dir, "commits.log");
+        Files.writeString(file.toPath(), "g:a:1.0 -\ng:a:1.1 own", StandardCharsets.UTF_8);
+        CommitStore store = new CommitStore(file);
+        assertThat(store.contains("g:a:1.0"), is(true));
+        assertThat(store.contains("g:a:1.1"), is(false));
+        store.put("g:a:1.2", null);
+        assertThat(new CommitStore(file).contains("g:a:1.2"), is(true));
+        Files.writeString(file.toPath(), "g:a:1.3 -\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        assertThat(store.contains("g:a:1.3"), is(true));
+    }
+
+}
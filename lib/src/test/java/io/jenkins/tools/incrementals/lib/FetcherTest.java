@@ -0,0 +1,147 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.lib;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FetcherTest {
+
+    private HttpServer server;
+    private String base;
+
+    @BeforeEach
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/plain", exchange -> {
+            byte[] body = "plain".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.createContext("/gzip", exchange -> {
+            boolean gzip = String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding")).contains("gzip");
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (OutputStream os = gzip ? new GZIPOutputStream(baos) : baos) {
+                os.write("compressed".getBytes(StandardCharsets.UTF_8));
+            }
+            if (gzip) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, baos.size());
+            try (OutputStream os = exchange.getResponseBody()) {
+                baos.writeTo(os);
+            }
+        });
+        server.createContext("/broken", exchange -> {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException x) {
+                // stopping
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/stall", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write("partial".getBytes(StandardCharsets.UTF_8));
+                os.flush();
+                Thread.sleep(5000);
+            } catch (InterruptedException | IOException x) {
+                // stopping
+            }
+        });
+        server.start();
+        base = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    public void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    public void bodies() throws Exception {
+        Fetcher fetcher = new Fetcher();
+        assertThat(read(fetcher, base + "/plain"), is("plain"));
+        assertThat(read(fetcher, base + "/gzip"), is("compressed"));
+        // connections are reused
+        assertThat(read(fetcher, base + "/plain"), is("plain"));
+    }
+
+    @Test
+    public void errors() {
+        Fetcher fetcher = new Fetcher();
+        assertThrows(FileNotFoundException.class, () -> fetcher.open(base + "/missing"));
+        IOException x = assertThrows(IOException.class, () -> fetcher.open(base + "/broken"));
+        assertThat(x.getMessage(), containsString("503"));
+    }
+
+    @Test
+    public void readTimeout() {
+        Fetcher fetcher = new Fetcher(Fetcher.DEFAULT_CONNECT_TIMEOUT, Duration.ofMillis(200));
+        assertThrows(IOException.class, () -> fetcher.open(base + "/slow"));
+    }
+
+    @Test
+    public void stalledBody() throws Exception {
+        Fetcher fetcher = new Fetcher(Duration.ofMillis(500), Duration.ofMillis(500));
+        long start = System.nanoTime();
+        assertThrows(HttpTimeoutException.class, () -> read(fetcher, base + "/stall"));
+        assertThat(System.nanoTime() - start < Duration.ofSeconds(4).toNanos(), is(true));
+    }
+
+    private static String read(Fetcher fetcher, String url) throws IOException {
+        try (InputStream is = fetcher.open(url)) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.lib;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MetadataCacheTest {
+
+    @TempDir
+    File dir;
+
+    private HttpServer server;
+    private String repo;
+    private volatile String versions = "<version>1.0</version>";
+    private final AtomicInteger downloads = new AtomicInteger();
+    private final AtomicInteger revalidations = new AtomicInteger();
+
+    @BeforeEach
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/repo/net/nowhere/lib/maven-metadata.xml", exchange -> {
+            String etag = '"' + Integer.toHexString(versions.hashCode()) + '"';
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                revalidations.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            downloads.incrementAndGet();
+            byte[] body = ("<metadata><versioning><versions>" + versions + "</versions></versioning></metadata>").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        repo = "http://localhost:" + server.getAddress().getPort() + "/repo/";
+    }
+
+    @AfterEach
+    public void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    public void ttl() throws Exception {
+        Fetcher fetcher = new Fetcher();
+        MetadataCache cache = new MetadataCache(dir, Duration.ofHours(1), false);
+        assertThat(cache.versions(repo, "net.nowhere", "lib", fetcher), is(List.of("1.0")));
+        assertThat(downloads.get(), is(1));
+        versions = "<version>1.0</version><version>1.1</version>";
+        // A new instance, as in a later run, still trusts the entry.
+        cache = new MetadataCache(dir, Duration.ofHours(1), false);
+        assertThat(cache.versions(repo, "net.nowhere", "lib", fetcher), is(List.of("1.0")));
+        assertThat(downloads.get(), is(1));
+        assertThat(revalidations.get(), is(0));
+        cache = new MetadataCache(dir, Duration.ofHours(1), true);
+        assertThat(cache.versions(repo, "net.nowhere", "lib", fetcher), is(List.of("1.0", "1.1")));
+        assertThat(downloads.get(), is(2));
+    }
+
+    @Test
+    public void revalidate() throws Exception {
+        Fetcher fetcher = new Fetcher();
+        MetadataCache cache = new MetadataCache(dir, Duration.ZERO, false);
+        assertThat(cache.versions(repo, "net.nowhere", "lib", fetcher), is(List.of("1.0")));
+        assertThat(cache.versions(repo, "net.nowhere", "lib", fetcher), is(List.of("1.0")));
+        assertThat(cache.versions(repo, "net.nowhere", "lib", fetcher), is(List.of("1.0")));
+        assertThat(downloads.get(), is(1));
+        assertThat(revalidations.get(), is(2));
+        versions = "<version>1.0</version><version>1.1</version>";
+        assertThat(cache.versions(repo, "net.nowhere", "lib", fetcher), is(List.of("1.0", "1.1")));
+        assertThat(downloads.get(), is(2));
+        assertThat(revalidations.get(), is(2));
+    }
+
+    @Test
+    public void missing() {
+        MetadataCache cache = new MetadataCache(dir, Duration.ZERO, false);
+        assertThrows(FileNotFoundException.class, () -> cache.versions(repo, "net.nowhere", "other", new Fetcher()));
+    }
+
+}
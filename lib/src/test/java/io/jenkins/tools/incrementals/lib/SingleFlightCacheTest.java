@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.lib;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SingleFlightCacheTest {
+
+    @Test
+    public void singleFlight() throws Exception {
+        SingleFlightCache<String, String> cache = new SingleFlightCache<>(10);
+        AtomicInteger computations = new AtomicInteger();
+        AtomicInteger hits = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(pool.submit(() -> cache.get("k", () -> {
+                    computations.incrementAndGet();
+                    release.await();
+                    return "v";
+                }, hits::incrementAndGet)));
+            }
+            while (computations.get() + hits.get() < 8) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            for (Future<String> f : futures) {
+                assertThat(f.get(), is("v"));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(computations.get(), is(1));
+        assertThat(hits.get(), is(7));
+    }
+
+    @Test
+    public void nullsAndFailures() throws Exception {
+        SingleFlightCache<String, String> cache = new SingleFlightCache<>(10);
+        AtomicInteger computations = new AtomicInteger();
+        assertThat(cache.get("none", () -> {
+            computations.incrementAndGet();
+            return null;
+        }), is(nullValue()));
+        assertThat(cache.get("none", () -> {
+            computations.incrementAndGet();
+            return "other";
+        }), is(nullValue()));
+        assertThat(computations.get(), is(1));
+        assertThrows(IOException.class, () -> cache.get("bad", () -> {
+            throw new IOException("try again");
+        }));
+        assertThat(cache.get("bad", () -> "ok"), is("ok"));
+    }
+
+    @Test
+    public void abandoned() throws Exception {
+        SingleFlightCache<String, String> cache = new SingleFlightCache<>(10);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger hits = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> owner = pool.submit(() -> cache.get("k", () -> {
+                started.countDown();
+                Thread.sleep(60_000);
+                return "never";
+            }));
+            started.await();
+            Future<String> waiter = pool.submit(() -> cache.get("k", () -> "v", hits::incrementAndGet));
+            while (hits.get() == 0) {
+                Thread.sleep(10);
+            }
+            // The owner is cancelled, which is no reason for the waiter to fail:
+            owner.cancel(true);
+            assertThat(waiter.get(), is("v"));
+            assertThat(cache.get("k", () -> "other"), is("v"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void eviction() throws Exception {
+        SingleFlightCache<Integer, Integer> cache = new SingleFlightCache<>(2);
+        AtomicInteger computations = new AtomicInteger();
+        for (int i : new int[] {1, 2, 1, 3, 1, 2}) {
+            cache.get(i, () -> {
+                computations.incrementAndGet();
+                return i;
+            });
+        }
+        // 1 is used recently enough to stay; 2 is evicted by 3 and computed again.
+        assertThat(computations.get(), is(4));
+    }
+
+}
@@ -0,0 +1,367 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package io.jenkins.tools.incrementals.lib;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.xml.stream.XMLStreamException;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class UpdateCheckerTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void parseVersions() throws Exception {
+        // as served from https://repo.jenkins-ci.org/incrementals/
+        String metadata = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <metadata modelVersion="1.1.0">
+              <groupId>org.jenkins-ci.plugins.workflow</groupId>
+              <artifactId>workflow-api</artifactId>
+              <versioning>
+                <latest>1212.v6e9e9a_5c9b_d0</latest>
+                <release>1212.v6e9e9a_5c9b_d0</release>
+                <versions>
+                  <version>2.29-rc219.e4b7d0b5ffd4</version>
+                  <version>1208.v0cc7c6e0da_9e</version>
+                  <version>1212.v6e9e9a_5c9b_d0</version>
+                </versions>
+                <lastUpdated>20230126154538</lastUpdated>
+              </versioning>
+              <versioning-extra><versions><version>not this one</version></versions></versioning-extra>
+            </metadata>
+            """;
+        assertThrows(Exception.class, () -> UpdateChecker.parseVersions(stream(metadata), "meta"));
+        String single = metadata.replace("<versioning-extra><versions><version>not this one</version></versions></versioning-extra>", "");
+        assertThat(UpdateChecker.parseVersions(stream(single), "meta"), is(List.of("2.29-rc219.e4b7d0b5ffd4", "1208.v0cc7c6e0da_9e", "1212.v6e9e9a_5c9b_d0")));
+        Exception x = assertThrows(Exception.class, () -> UpdateChecker.parseVersions(stream("<metadata><groupId>g</groupId></metadata>"), "meta"));
+        assertThat(x.getMessage(), is("Could not find <versions> in meta"));
+    }
+
+    @Test
+    public void parseScm() throws Exception {
+        // trimmed from a deployed plugin POM, with other <url>s before and after <scm>
+        String pom = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <project xmlns="http://maven.apache.org/POM/4.0.0" xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance" xsi:schemaLocation="http://maven.apache.org/POM/4.0.0 https://maven.apache.org/xsd/maven-4.0.0.xsd">
+              <modelVersion>4.0.0</modelVersion>
+              <parent>
+                <groupId>org.jenkins-ci.plugins</groupId>
+                <artifactId>plugin</artifactId>
+                <version>4.51</version>
+                <relativePath />
+              </parent>
+              <groupId>org.jenkins-ci.plugins.workflow</groupId>
+              <artifactId>workflow-api</artifactId>
+              <version>1212.v6e9e9a_5c9b_d0</version>
+              <url>https://github.com/jenkinsci/workflow-api-plugin</url>
+              <organization>
+                <name>Jenkins</name>
+                <url>https://www.jenkins.io/</url>
+              </organization>
+              <licenses>
+                <license>
+                  <name>MIT License</name>
+                  <url>https://opensource.org/licenses/MIT</url>
+                </license>
+              </licenses>
+              <scm>
+                <connection>scm:git:https://github.com/jenkinsci/workflow-api-plugin.git</connection>
+                <developerConnection>scm:git:git@github.com:jenkinsci/workflow-api-plugin.git</developerConnection>
+                <url>https://github.com/jenkinsci/workflow-api-plugin</url>
+                <tag>6e9e9a5c9bd0d6d9d9c4e7c0a6d8e1d6f7e8a9b0</tag>
+              </scm>
+              <distributionManagement>
+                <site>
+                  <url>https://example.com/never-read</url>
+                </site>
+              </distributionManagement>
+            </project>
+            """;
+        assertThat(UpdateChecker.parseScm(stream(pom), "pom"), is(new String[] {"https://github.com/jenkinsci/workflow-api-plugin", "6e9e9a5c9bd0d6d9d9c4e7c0a6d8e1d6f7e8a9b0"}));
+        String noTag = pom.replace("<tag>6e9e9a5c9bd0d6d9d9c4e7c0a6d8e1d6f7e8a9b0</tag>", "");
+        assertThat(UpdateChecker.parseScm(stream(noTag), "pom"), is(new String[] {"https://github.com/jenkinsci/workflow-api-plugin", null}));
+        String noUrl = pom.replace("<url>https://github.com/jenkinsci/workflow-api-plugin</url>\n    <tag>", "<tag>");
+        Exception x = assertThrows(Exception.class, () -> UpdateChecker.parseScm(stream(noUrl), "pom"));
+        assertThat(x.getMessage(), is("Could not find <url> in pom"));
+        String noScm = pom.substring(0, pom.indexOf("  <scm>")) + pom.substring(pom.indexOf("  <distributionManagement>"));
+        assertThat(UpdateChecker.parseScm(stream(noScm), "pom"), is(nullValue()));
+        // <scm> elsewhere than under <project> does not count:
+        String nestedScm = noScm.replace("<site>", "<site><scm><url>https://example.com/wrong</url></scm>");
+        assertThat(UpdateChecker.parseScm(stream(nestedScm), "pom"), is(nullValue()));
+    }
+
+    @Test
+    public void dtdRejected() throws Exception {
+        File secret = new File(dir, "secret.txt");
+        Files.writeString(secret.toPath(), "https://github.com/attacker/repo", StandardCharsets.UTF_8);
+        String pom = "<?xml version=\"1.0\"?>\n" +
+            "<!DOCTYPE project [<!ENTITY secret SYSTEM \"" + secret.toURI() + "\">]>\n" +
+            "<project><scm><url>&secret;</url><tag>HEAD</tag></scm></project>";
+        assertThrows(XMLStreamException.class, () -> UpdateChecker.parseScm(stream(pom), "pom"));
+        String metadata = "<?xml version=\"1.0\"?>\n" +
+            "<!DOCTYPE metadata [<!ENTITY v \"1.0\"><!ENTITY vs \"&v;&v;&v;&v;&v;&v;&v;&v;\">]>\n" +
+            "<metadata><versioning><versions><version>&vs;</version></versions></versioning></metadata>";
+        assertThrows(XMLStreamException.class, () -> UpdateChecker.parseVersions(stream(metadata), "meta"));
+    }
+
+    @Test
+    public void abbreviatedHash() {
+        assertThat(UpdateChecker.abbreviatedHash("1.23-rc1234.0123456789cd"), is("0123456789cd"));
+        // as written by Main.sanitize:
+        assertThat(UpdateChecker.abbreviatedHash("rc123.852b_473a_2b_8c"), is("852b473a2b8c"));
+        assertThat(UpdateChecker.abbreviatedHash("1.23-rc1234.a_b_c123def456"), is("abc123def456"));
+        assertThat(UpdateChecker.abbreviatedHash("1.23"), is(nullValue()));
+        assertThat(UpdateChecker.abbreviatedHash("1.23-rc1234.xyz"), is(nullValue()));
+    }
+
+    @Test
+    public void changelist() {
+        assertThat(UpdateChecker.changelist("1.23-rc1234.0123456789cd"), is(1234));
+        assertThat(UpdateChecker.changelist("rc123.852b_473a_2b_8c"), is(123));
+        assertThat(UpdateChecker.changelist("1.23"), is(-1));
+        assertThat(UpdateChecker.changelist("1.23-rc1234.xyz"), is(-1));
+    }
+
+    @Test
+    public void sanitizedVersionNeedsNoPOM() throws Exception {
+        String repo = dir.toURI().toString();
+        writePOM("owner", "1.1-rc10.852b_473a_2b_8c", "852b473a2b8c0000000000000000000000000000");
+        UpdateChecker checker = new UpdateChecker(message -> {}, List.of(repo));
+        UpdateChecker.GitHubCommit first = checker.loadGitHubCommit(new UpdateChecker.VersionAndRepo("g", "a", new ComparableVersion("1.1-rc10.852b_473a_2b_8c"), repo), "owner:master");
+        assertThat(first.toString(), is("https://github.com/owner/repo/commit/852b473a2b8c0000000000000000000000000000"));
+        // No POM for this one, so it can only be mapped from the version:
+        UpdateChecker.GitHubCommit second = checker.loadGitHubCommit(new UpdateChecker.VersionAndRepo("g", "a", new ComparableVersion("1.1-rc12.a_0b_1234567cd"), repo), "owner:master");
+        assertThat(second.toString(), is("https://github.com/owner/repo/commit/a0b1234567cd"));
+    }
+
+    @Test
+    public void otherRepositoryNeedsPOM() throws Exception {
+        String repo = dir.toURI().toString();
+        // as deployed from a pull request from a fork:
+        writePOM("forker", "1.1-rc10.852b_473a_2b_8c", "852b473a2b8c0000000000000000000000000000");
+        UpdateChecker checker = new UpdateChecker(message -> {}, List.of(repo));
+        UpdateChecker.GitHubCommit first = checker.loadGitHubCommit(new UpdateChecker.VersionAndRepo("g", "a", new ComparableVersion("1.1-rc10.852b_473a_2b_8c"), repo), "owner:master");
+        assertThat(first.toString(), is("https://github.com/forker/repo/commit/852b473a2b8c0000000000000000000000000000"));
+        // So other versions are not assumed to come from the fork too:
+        assertThrows(FileNotFoundException.class, () -> checker.loadGitHubCommit(new UpdateChecker.VersionAndRepo("g", "a", new ComparableVersion("1.1-rc12.a_0b_1234567cd"), repo), "owner:master"));
+    }
+
+    @Test
+    public void concurrencyMustBePositive() {
+        UpdateChecker checker = new UpdateChecker(message -> {}, List.of(dir.toURI().toString()));
+        assertThrows(IllegalArgumentException.class, () -> checker.findAll(List.of(), 0));
+    }
+
+    @Test
+    public void slowRepository() throws Exception {
+        AtomicBoolean stalling = new AtomicBoolean(true);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/slow/", exchange -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException x) {
+                // stopping
+            }
+            sendMetadata(exchange);
+        });
+        server.createContext("/stalling/", exchange -> {
+            if (!stalling.get()) {
+                sendMetadata(exchange);
+                return;
+            }
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write("<metadata>".getBytes(StandardCharsets.UTF_8));
+                os.flush();
+                Thread.sleep(5000);
+            } catch (InterruptedException | IOException x) {
+                // stopping
+            }
+        });
+        server.start();
+        try {
+            String base = "http://localhost:" + server.getAddress().getPort();
+            Fetcher fetcher = new Fetcher(Duration.ofSeconds(1), Duration.ofSeconds(1));
+            // Slow, but each download is well within its timeout, however many are waiting:
+            UpdateChecker checker = new UpdateChecker(message -> {}, List.of(base + "/slow/"), fetcher, null, null, null, 1);
+            List<UpdateChecker.Query> queries = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                queries.add(new UpdateChecker.Query("g", "a" + (i % 8), "1.0", "master"));
+            }
+            for (UpdateChecker.Result result : checker.findAll(queries, 4)) {
+                assertThat(result.query.toString(), result.error, is(nullValue()));
+                assertThat(result.update, is(nullValue()));
+            }
+            // A download which takes too long fails, but only until the repository recovers:
+            checker = new UpdateChecker(message -> {}, List.of(base + "/stalling/"), fetcher, null, null, null, 1);
+            UpdateChecker.Result result = checker.findAll(List.of(new UpdateChecker.Query("g", "a", "1.0", "master")), 1).get(0);
+            assertThat(result.error, instanceOf(HttpTimeoutException.class));
+            stalling.set(false);
+            assertThat(checker.find("g", "a", "1.0", "master"), is(nullValue()));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void findAll() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/repo/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            byte[] body;
+            if (path.startsWith("/repo/g/broken/")) {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            } else if (path.endsWith("/maven-metadata.xml")) {
+                // Each query fetches metadata once, and nothing else meanwhile, so this is how many queries are running.
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException x) {
+                    // stopping
+                }
+                running.decrementAndGet();
+                body = "<metadata><versioning><versions><version>1.0</version><version>1.1</version></versions></versioning></metadata>".getBytes(StandardCharsets.UTF_8);
+            } else if (path.endsWith(".pom")) {
+                body = "<project/>".getBytes(StandardCharsets.UTF_8); // a release, not an incremental version
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        try {
+            List<String> messages = Collections.synchronizedList(new ArrayList<>());
+            UpdateChecker checker = new UpdateChecker(messages::add, List.of("http://localhost:" + server.getAddress().getPort() + "/repo/"), new Fetcher(), null, null, null, 1);
+            List<UpdateChecker.Query> queries = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                queries.add(new UpdateChecker.Query("g", i == 3 ? "broken" : "a" + i, "1.0", "master"));
+            }
+            List<UpdateChecker.Result> results = checker.findAll(queries, 3);
+            assertThat(results.size(), is(queries.size()));
+            for (int i = 0; i < queries.size(); i++) {
+                UpdateChecker.Result result = results.get(i);
+                assertThat(result.query, is(queries.get(i)));
+                if (i == 3) {
+                    assertThat(result.error, instanceOf(IOException.class));
+                    assertThat(result.error.getMessage(), containsString("HTTP 500"));
+                    assertThat(result.update, is(nullValue()));
+                } else {
+                    assertThat(result.query.toString(), result.error, is(nullValue()));
+                    assertThat(result.update.artifactId, is("a" + i));
+                    assertThat(result.update.version.toString(), is("1.1"));
+                }
+            }
+            assertThat(maxRunning.get(), is(lessThanOrEqualTo(3)));
+            assertThat(maxRunning.get(), is(greaterThan(1)));
+            // Each query's messages come together, in the order of the queries:
+            List<String> searched = new ArrayList<>();
+            String current = null;
+            for (String message : messages) {
+                Matcher m = Pattern.compile("Searching for updates to g:([^:]+):.+").matcher(message);
+                if (m.matches()) {
+                    current = m.group(1);
+                    searched.add(current);
+                } else if (message.contains("/g/")) {
+                    assertThat(message, containsString("/g/" + current + "/"));
+                }
+            }
+            List<String> expected = new ArrayList<>();
+            for (UpdateChecker.Query query : queries) {
+                expected.add(query.artifactId);
+            }
+            assertThat(searched, is(expected));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static void sendMetadata(HttpExchange exchange) throws IOException {
+        byte[] body = "<metadata><groupId>g</groupId><versioning><versions><version>1.0</version></versions></versioning></metadata>".getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private void writePOM(String owner, String version, String tag) throws Exception {
+        File pom = new File(dir, "g/a/" + version + "/a-" + version + ".pom");
+        Files.createDirectories(pom.getParentFile().toPath());
+        Files.writeString(pom.toPath(),
+            "<project><groupId>g</groupId><artifactId>a</artifactId><version>" + version + "</version>" +
+            "<scm><url>https://github.com/" + owner + "/repo</url><tag>" + tag + "</tag></scm></project>",
+            StandardCharsets.UTF_8);
+    }
+
+    private static InputStream stream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
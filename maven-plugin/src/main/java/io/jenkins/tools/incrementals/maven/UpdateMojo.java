@@ -24,7 +24,14 @@
 
 package io.jenkins.tools.incrementals.maven;
 
+import io.jenkins.tools.incrementals.lib.AncestryCache;
+import io.jenkins.tools.incrementals.lib.CommitStore;
+import io.jenkins.tools.incrementals.lib.Fetcher;
+import io.jenkins.tools.incrementals.lib.MetadataCache;
 import io.jenkins.tools.incrementals.lib.UpdateChecker;
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -80,6 +87,57 @@ public class UpdateMojo extends AbstractVersionsDependencyUpdaterMojo {
     @Parameter(defaultValue = "${project.remoteArtifactRepositories}", readonly = true)
     private List<MavenArtifactRepository> repos;
 
+    /**
+     * Seconds to wait when connecting to an artifact repository.
+     * @since TODO
+     */
+    @Parameter(property = "connectTimeout", defaultValue = "10")
+    private int connectTimeout;
+
+    /**
+     * Seconds to wait for an artifact repository to start responding to a request.
+     * @since TODO
+     */
+    @Parameter(property = "readTimeout", defaultValue = "60")
+    private int readTimeout;
+
+    /**
+     * Directory in which to keep information about artifact repositories between runs.
+     * @since TODO
+     */
+    @Parameter(property = "incrementals.cacheDirectory", defaultValue = "${settings.localRepository}/.cache/incrementals")
+    private File cacheDirectory;
+
+    /**
+     * Seconds for which a cached {@code maven-metadata.xml} is used without checking the repository for changes.
+     * By default it is always revalidated, which is cheap if it has not changed,
+     * so a newly deployed version is never missed.
+     * @since TODO
+     */
+    @Parameter(property = "metadataTtl", defaultValue = "0")
+    private int metadataTtl;
+
+    /**
+     * Whether to ignore cached {@code maven-metadata.xml} and download it again.
+     * @since TODO
+     */
+    @Parameter(property = "refreshMetadata", defaultValue = "false")
+    private boolean refreshMetadata;
+
+    /**
+     * How many candidate versions of one dependency to examine at once.
+     * @since TODO
+     */
+    @Parameter(property = "parallelism", defaultValue = "4")
+    private int parallelism;
+
+    /**
+     * How many dependencies to look up at once.
+     * @since TODO
+     */
+    @Parameter(property = "concurrency", defaultValue = "8")
+    private int concurrency;
+
     /**
      * Whether to allow snapshots when searching for the latest version of an artifact.
      *
@@ -145,7 +203,12 @@ public class UpdateMojo extends AbstractVersionsDependencyUpdaterMojo {
         try {
             UpdateChecker checker = new UpdateChecker(message -> getLog().info(message),
                 // TODO use repos.stream().map(MavenArtifactRepository::getUrl).collect(Collectors.toList()) if UpdateChecker.loadVersions is fixed to exclude snapshots and pass authentication
-                Arrays.asList("https://repo.jenkins-ci.org/releases/", "https://repo.jenkins-ci.org/incrementals/"));
+                Arrays.asList("https://repo.jenkins-ci.org/releases/", "https://repo.jenkins-ci.org/incrementals/"),
+                new Fetcher(Duration.ofSeconds(connectTimeout), Duration.ofSeconds(readTimeout)),
+                new MetadataCache(new File(cacheDirectory, "metadata"), Duration.ofSeconds(metadataTtl), refreshMetadata),
+                new CommitStore(new File(cacheDirectory, "commits.log")),
+                new AncestryCache(new File(cacheDirectory, "ancestry.log")),
+                parallelism);
             if (getProcessDependencyManagement()) {
                 DependencyManagement dependencyManagement = getProject().getDependencyManagement();
                 if (dependencyManagement != null) {
@@ -167,6 +230,8 @@ public class UpdateMojo extends AbstractVersionsDependencyUpdaterMojo {
     }
 
     private void update(MutableXMLStreamReader pom, List<Dependency> dependencies, UpdateChecker checker) throws Exception {
+        List<Dependency> found = new ArrayList<>();
+        List<UpdateChecker.Query> queries = new ArrayList<>();
         for (Dependency dep : dependencies) {
             Artifact art = toArtifact(dep);
             if (!isIncluded(art)) {
@@ -186,20 +251,29 @@ public class UpdateMojo extends AbstractVersionsDependencyUpdaterMojo {
                 getLog().debug("Skipping nonincremental dep " + toString(dep));
                 continue;
             }
-            String groupId = art.getGroupId();
-            String artifactId = art.getArtifactId();
-            // TODO need to add a caching layer here, as it can be called repeatedly with the same arguments in a reactor build
-            UpdateChecker.VersionAndRepo result = checker.find(groupId, artifactId, version, branch);
-            if (result == null) {
+            found.add(dep);
+            queries.add(new UpdateChecker.Query(art.getGroupId(), art.getArtifactId(), version, branch));
+        }
+        List<UpdateChecker.Result> results = checker.findAll(queries, concurrency);
+        for (int i = 0; i < results.size(); i++) {
+            Dependency dep = found.get(i);
+            UpdateChecker.Result result = results.get(i);
+            if (result.error != null) {
+                throw result.error;
+            }
+            if (result.update == null) {
                 getLog().info("No update found for " + toString(dep));
             } else {
-                getLog().info("Can update dependency " + toString(dep) + " to " + result.version);
-                PomHelper.setDependencyVersion(pom, groupId, artifactId, version, result.version.toString(), getProject().getModel(), getLog());
+                getLog().info("Can update dependency " + toString(dep) + " to " + result.update.version);
+                PomHelper.setDependencyVersion(pom, result.query.groupId, result.query.artifactId, result.query.currentVersion, result.update.version.toString(), getProject().getModel(), getLog());
             }
         }
     }
 
     private void updateProperties(MutableXMLStreamReader pom, UpdateChecker checker) throws Exception {
+        List<String> names = new ArrayList<>();
+        List<String> profileIds = new ArrayList<>();
+        List<UpdateChecker.Query> queries = new ArrayList<>();
         PROPERTY: for (Map.Entry<Property, PropertyVersions> entry : getHelper().getVersionPropertiesMap(VersionsHelper.VersionPropertiesMapRequest.builder().withMavenProject(getProject()).build()).entrySet()) {
             Property property = entry.getKey();
             String name = property.getName();
@@ -231,12 +305,21 @@ public class UpdateMojo extends AbstractVersionsDependencyUpdaterMojo {
                 getLog().info("No artifacts using ${" + name + "}, skipping");
                 continue;
             }
-            UpdateChecker.VersionAndRepo result = checker.find(ga.get(0), ga.get(1), version, branch);
-            if (result == null) {
-                getLog().info("No update found for: " + ga.get(0) + ":" + ga.get(1) + ":" + version);
+            names.add(name);
+            profileIds.add(versions.getProfileId());
+            queries.add(new UpdateChecker.Query(ga.get(0), ga.get(1), version, branch));
+        }
+        List<UpdateChecker.Result> results = checker.findAll(queries, concurrency);
+        for (int i = 0; i < results.size(); i++) {
+            UpdateChecker.Result result = results.get(i);
+            if (result.error != null) {
+                throw result.error;
+            }
+            if (result.update == null) {
+                getLog().info("No update found for: " + result.query.groupId + ":" + result.query.artifactId + ":" + result.query.currentVersion);
             } else {
-                getLog().info("Can update ${" + name + "} to " + result.version);
-                PomHelper.setPropertyVersion(pom, versions.getProfileId(), name, result.version.toString());
+                getLog().info("Can update ${" + names.get(i) + "} to " + result.update.version);
+                PomHelper.setPropertyVersion(pom, profileIds.get(i), names.get(i), result.update.version.toString());
             }
         }
     }
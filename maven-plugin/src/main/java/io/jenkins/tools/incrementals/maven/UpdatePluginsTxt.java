@@ -24,6 +24,10 @@
 
 package io.jenkins.tools.incrementals.maven;
 
+import io.jenkins.tools.incrementals.lib.AncestryCache;
+import io.jenkins.tools.incrementals.lib.CommitStore;
+import io.jenkins.tools.incrementals.lib.Fetcher;
+import io.jenkins.tools.incrementals.lib.MetadataCache;
 import io.jenkins.tools.incrementals.lib.UpdateChecker;
 import io.jenkins.tools.incrementals.maven.util.PluginRef;
 import io.jenkins.tools.incrementals.maven.util.PluginRefList;
@@ -35,6 +39,8 @@ import org.apache.maven.plugins.annotations.Parameter;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -75,11 +81,67 @@ public class UpdatePluginsTxt extends AbstractMojo implements DependencyManageme
     //@Parameter(defaultValue = "${project.remoteArtifactRepositories}", readonly = true)
     //private List<MavenArtifactRepository> repos;
 
+    /**
+     * Seconds to wait when connecting to an artifact repository.
+     * @since TODO
+     */
+    @Parameter(property = "connectTimeout", defaultValue = "10")
+    private int connectTimeout;
+
+    /**
+     * Seconds to wait for an artifact repository to start responding to a request.
+     * @since TODO
+     */
+    @Parameter(property = "readTimeout", defaultValue = "60")
+    private int readTimeout;
+
+    /**
+     * Directory in which to keep information about artifact repositories between runs.
+     * @since TODO
+     */
+    @Parameter(property = "incrementals.cacheDirectory", defaultValue = "${settings.localRepository}/.cache/incrementals")
+    private File cacheDirectory;
+
+    /**
+     * Seconds for which a cached {@code maven-metadata.xml} is used without checking the repository for changes.
+     * By default it is always revalidated, which is cheap if it has not changed,
+     * so a newly deployed version is never missed.
+     * @since TODO
+     */
+    @Parameter(property = "metadataTtl", defaultValue = "0")
+    private int metadataTtl;
+
+    /**
+     * Whether to ignore cached {@code maven-metadata.xml} and download it again.
+     * @since TODO
+     */
+    @Parameter(property = "refreshMetadata", defaultValue = "false")
+    private boolean refreshMetadata;
+
+    /**
+     * How many candidate versions of one dependency to examine at once.
+     * @since TODO
+     */
+    @Parameter(property = "parallelism", defaultValue = "4")
+    private int parallelism;
+
+    /**
+     * How many dependencies to look up at once.
+     * @since TODO
+     */
+    @Parameter(property = "concurrency", defaultValue = "8")
+    private int concurrency;
+
     @Override
     public void execute() throws MojoExecutionException {
         UpdateChecker checker = new UpdateChecker(message -> getLog().info(message),
                 // TODO use repos.stream().map(MavenArtifactRepository::getUrl).collect(Collectors.toList()) if UpdateChecker.loadVersions is fixed to exclude snapshots and pass authentication
-                Arrays.asList("https://repo.jenkins-ci.org/releases/", "https://repo.jenkins-ci.org/incrementals/"));
+                Arrays.asList("https://repo.jenkins-ci.org/releases/", "https://repo.jenkins-ci.org/incrementals/"),
+                new Fetcher(Duration.ofSeconds(connectTimeout), Duration.ofSeconds(readTimeout)),
+                new MetadataCache(new File(cacheDirectory, "metadata"), Duration.ofSeconds(metadataTtl), refreshMetadata),
+                new CommitStore(new File(cacheDirectory, "commits.log")),
+                new AncestryCache(new File(cacheDirectory, "ancestry.log")),
+                parallelism);
 
         File file = new File(pluginsFile);
         if (!file.exists()) {
@@ -109,6 +171,8 @@ public class UpdatePluginsTxt extends AbstractMojo implements DependencyManageme
     }
 
     private void update(List<PluginRef> dependencies, UpdateChecker checker) throws MojoExecutionException {
+        List<PluginRef> found = new ArrayList<>();
+        List<UpdateChecker.Query> queries = new ArrayList<>();
         for (PluginRef dep : dependencies) {
             if (dep.isComment()) {
                 continue; // skip comments
@@ -156,19 +220,27 @@ public class UpdatePluginsTxt extends AbstractMojo implements DependencyManageme
                 }
             }
 
-            // TODO need to add a caching layer here, as it can be called repeatedly with the same arguments in a reactor build
-            final UpdateChecker.VersionAndRepo result;
-            try {
-                result = checker.find(groupId, artifactId, version, effectiveBranch);
-            } catch (Exception ex) {
-                throw new MojoExecutionException("Cannot check for updates", ex);
-            }
+            found.add(dep);
+            queries.add(new UpdateChecker.Query(groupId, artifactId, version, effectiveBranch));
+        }
 
-            if (result == null) {
-                getLog().info("No update found for " + dep + ". Current version is " + version);
+        final List<UpdateChecker.Result> results;
+        try {
+            results = checker.findAll(queries, concurrency);
+        } catch (InterruptedException ex) {
+            throw new MojoExecutionException("Interrupted while checking for updates", ex);
+        }
+        for (int i = 0; i < results.size(); i++) {
+            PluginRef dep = found.get(i);
+            UpdateChecker.Result result = results.get(i);
+            if (result.error != null) {
+                throw new MojoExecutionException("Cannot check for updates", result.error);
+            }
+            if (result.update == null) {
+                getLog().info("No update found for " + dep + ". Current version is " + result.query.currentVersion);
             } else {
-                getLog().info("Can update dependency " + dep + " to " + result.version);
-                dep.setVersion(result.version.toString());
+                getLog().info("Can update dependency " + dep + " to " + result.update.version);
+                dep.setVersion(result.update.version.toString());
             }
         }
     }